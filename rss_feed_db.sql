@@ -1,6 +1,16 @@
 -- FeedHawk RSS Feed Aggregator Database Schema
 -- Created: September 3, 2025
 -- Description: Finalized database schema for FeedHawk RSS feed reader with reel-style interface
+--
+-- The application creates and upgrades this schema itself through versioned
+-- migrations (db.SchemaMigrations), recorded in the schema_migrations table.
+-- This file is kept as a reference of the resulting layout.
+
+CREATE TABLE schema_migrations (
+    version INT PRIMARY KEY,
+    description TEXT NOT NULL,
+    applied_at TIMESTAMP DEFAULT NOW()
+);
 
 -- ==========================================
 -- 1. USERS TABLE
@@ -55,17 +65,43 @@ CREATE TABLE subscriptions (
 -- ==========================================
 -- 5. FEED_ITEMS TABLE
 -- ==========================================
--- Actual feed entries fetched from RSS sources
+-- Actual feed entries fetched from RSS sources.
+-- Range-partitioned by month on published_at (feed_items_yYYYYmMM, plus
+-- feed_items_default); partitions are created by the application and expired
+-- by its retention job. Unique constraints must include the partition key, so
+-- duplicate articles are rejected on insert through feed_item_keys (below).
 CREATE TABLE feed_items (
-    feed_id SERIAL PRIMARY KEY,
+    feed_id SERIAL,
     source_id INT NOT NULL REFERENCES sources(source_id) ON DELETE CASCADE,
     title TEXT NOT NULL,
-    content TEXT, -- Raw HTML/text content
     summary TEXT, -- AI-generated summary
-    url TEXT UNIQUE NOT NULL, -- Article URL
-    published_at TIMESTAMP,
+    url TEXT NOT NULL, -- Article URL
+    published_at TIMESTAMP NOT NULL DEFAULT NOW(),
     created_at TIMESTAMP DEFAULT NOW(),
-    UNIQUE(source_id, url) -- Prevent duplicate articles from same source
+    -- Full-text search document (title weighted A, body B), computed on insert
+    search_vector tsvector,
+    preview TEXT, -- Short plain-text preview shown on cards
+    guid TEXT, -- Entry GUID from the feed (normalized URL when the feed has none)
+    guid_hash BIGINT NOT NULL, -- First 64 bits of SHA-256(guid)
+    url_hash BIGINT NOT NULL, -- First 64 bits of SHA-256(normalized url)
+    PRIMARY KEY (feed_id, published_at)
+) PARTITION BY RANGE (published_at);
+
+CREATE TABLE feed_items_default PARTITION OF feed_items DEFAULT;
+
+-- Dedup keys: the unique (source_id, guid_hash) constraint the partitioned
+-- feed_items table cannot carry. Keys outlive expired items on purpose.
+CREATE TABLE feed_item_keys (
+    source_id INT NOT NULL REFERENCES sources(source_id) ON DELETE CASCADE,
+    guid_hash BIGINT NOT NULL,
+    feed_id INT NOT NULL,
+    PRIMARY KEY (source_id, guid_hash)
+);
+
+-- Full article bodies, kept out of the hot timeline rows and loaded on demand
+CREATE TABLE feed_item_bodies (
+    feed_id INT PRIMARY KEY, -- feed_items is partitioned; removed by the retention job
+    content TEXT -- Raw HTML/text content
 );
 
 -- ==========================================
@@ -75,7 +111,7 @@ CREATE TABLE feed_items (
 CREATE TABLE read_status (
     status_id SERIAL PRIMARY KEY,
     user_id INT NOT NULL REFERENCES users(user_id) ON DELETE CASCADE,
-    feed_id INT NOT NULL REFERENCES feed_items(feed_id) ON DELETE CASCADE,
+    feed_id INT NOT NULL, -- feed_items is partitioned; cleaned up by the retention job
     is_read BOOLEAN DEFAULT FALSE,
     marked_read_at TIMESTAMP,
     UNIQUE(user_id, feed_id) -- One read status per user per feed
@@ -88,7 +124,7 @@ CREATE TABLE read_status (
 CREATE TABLE user_bookmarks (
     bookmark_id SERIAL PRIMARY KEY,
     user_id INT NOT NULL REFERENCES users(user_id) ON DELETE CASCADE,
-    feed_id INT NOT NULL REFERENCES feed_items(feed_id) ON DELETE CASCADE,
+    feed_id INT NOT NULL, -- feed_items is partitioned; bookmarked items survive retention
     created_at TIMESTAMP DEFAULT NOW(),
     UNIQUE(user_id, feed_id) -- Prevent duplicate bookmarks
 );
@@ -105,6 +141,8 @@ CREATE INDEX idx_users_username ON users(username);
 CREATE INDEX idx_feed_items_source ON feed_items(source_id);
 CREATE INDEX idx_feed_items_published ON feed_items(published_at DESC);
 CREATE INDEX idx_feed_items_source_date ON feed_items(source_id, published_at DESC);
+CREATE INDEX idx_feed_items_source_url_hash ON feed_items(source_id, url_hash);
+CREATE INDEX idx_feed_items_search ON feed_items USING GIN (search_vector);
 
 -- Subscriptions indexes
 CREATE INDEX idx_subscriptions_list ON subscriptions(list_id);
@@ -1,10 +1,12 @@
 package auth;
 
+import db.AsyncDAO;
 import db.models.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller layer for authentication operations
@@ -15,6 +17,8 @@ public class AuthController {
     private final AuthService authService;
     private static AuthController instance;
 
+    private static final String BUSY_MESSAGE = "The server is busy right now. Please try again in a moment.";
+
     private AuthController() {
         this.authService = new AuthService();
     }
@@ -46,13 +50,15 @@ public class AuthController {
             }
 
             // Attempt registration
-            Optional<User> userOpt = authService.register(username, email, password);
-            if (userOpt.isPresent()) {
-                return new AuthResult(true, "Registration successful! You can now log in.", userOpt.get());
+            AuthService.Registration registration = authService.register(username, email, password);
+            if (registration.isSuccess()) {
+                return new AuthResult(true, "Registration successful! You can now log in.", registration.getUser());
             } else {
-                return new AuthResult(false, "Registration failed. Please try again.", null);
+                return new AuthResult(false, registration.getError(), null);
             }
 
+        } catch (PasswordHasher.BusyException e) {
+            return new AuthResult(false, BUSY_MESSAGE, null);
         } catch (Exception e) {
             logger.error("Error in user registration", e);
             return new AuthResult(false, "An error occurred during registration. Please try again.", null);
@@ -60,9 +66,32 @@ public class AuthController {
     }
 
     /**
-     * Handle user login
+     * Whether a username is taken, for validating the signup form as it is typed
+     */
+    public CompletableFuture<Boolean> isUsernameTaken(String username) {
+        String trimmed = username.trim();
+        return AsyncDAO.getInstance().users(dao -> dao.usernameExists(trimmed));
+    }
+
+    /**
+     * Whether an email is already registered, for validating the signup form as it is typed
+     */
+    public CompletableFuture<Boolean> isEmailTaken(String email) {
+        String normalized = email.trim().toLowerCase();
+        return AsyncDAO.getInstance().users(dao -> dao.emailExists(normalized));
+    }
+
+    /**
+     * Handle user login without remembering the session
      */
     public AuthResult loginUser(String usernameOrEmail, String password) {
+        return loginUser(usernameOrEmail, password, false);
+    }
+
+    /**
+     * Handle user login
+     */
+    public AuthResult loginUser(String usernameOrEmail, String password, boolean rememberMe) {
         try {
             if (usernameOrEmail == null || usernameOrEmail.trim().isEmpty()) {
                 return new AuthResult(false, "Please enter username or email", null);
@@ -72,19 +101,59 @@ public class AuthController {
                 return new AuthResult(false, "Please enter password", null);
             }
 
-            Optional<User> userOpt = authService.login(usernameOrEmail, password);
+            long retryDelay = authService.getLoginRetryDelaySeconds(usernameOrEmail);
+            if (retryDelay > 0) {
+                return new AuthResult(false, "Too many failed attempts. Please try again in "
+                    + formatDelay(retryDelay) + ".", null);
+            }
+
+            Optional<User> userOpt = authService.login(usernameOrEmail, password, rememberMe);
             if (userOpt.isPresent()) {
                 return new AuthResult(true, "Login successful!", userOpt.get());
             } else {
                 return new AuthResult(false, "Invalid username/email or password", null);
             }
 
+        } catch (PasswordHasher.BusyException e) {
+            return new AuthResult(false, BUSY_MESSAGE, null);
         } catch (Exception e) {
             logger.error("Error in user login", e);
             return new AuthResult(false, "An error occurred during login. Please try again.", null);
         }
     }
 
+    /**
+     * Whether there is a remember-me session to resume
+     */
+    public boolean hasSavedSession() {
+        return authService.hasSavedSession();
+    }
+
+    /**
+     * Check the remember-me session saved on this machine. The user is not
+     * logged in until {@link #startSession(User)}, so a lookup that finishes
+     * after the caller gave up on it changes nothing.
+     */
+    public AuthResult resumeSession() {
+        try {
+            Optional<User> userOpt = authService.findSavedSession();
+            if (userOpt.isPresent()) {
+                return new AuthResult(true, "Welcome back!", userOpt.get());
+            }
+            return new AuthResult(false, "Please log in", null);
+        } catch (Exception e) {
+            logger.error("Error resuming session", e);
+            return new AuthResult(false, "Please log in", null);
+        }
+    }
+
+    /**
+     * Log in the user of a session returned by {@link #resumeSession()}
+     */
+    public void startSession(User user) {
+        authService.startSession(user);
+    }
+
     /**
      * Handle user logout
      */
@@ -125,12 +194,22 @@ public class AuthController {
                 return new AuthResult(false, "Failed to change password. Please check your current password.", null);
             }
 
+        } catch (PasswordHasher.BusyException e) {
+            return new AuthResult(false, BUSY_MESSAGE, null);
         } catch (Exception e) {
             logger.error("Error changing password", e);
             return new AuthResult(false, "An error occurred while changing password", null);
         }
     }
 
+    private static String formatDelay(long seconds) {
+        if (seconds < 60) {
+            return seconds + (seconds == 1 ? " second" : " seconds");
+        }
+        long minutes = (seconds + 59) / 60;
+        return minutes + (minutes == 1 ? " minute" : " minutes");
+    }
+
     /**
      * Result class for authentication operations
      */
@@ -1,81 +1,124 @@
 package auth;
 
+import db.AsyncDAO;
 import db.UserDAO;
 import db.models.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import utils.Constants;
 
+import javax.swing.SwingUtilities;
+import java.time.Duration;
 import java.util.Optional;
 
 public class AuthService {
     private static final Logger logger = LoggerFactory.getLogger(AuthService.class);
     private final UserDAO userDAO;
+    private final LoginThrottle loginThrottle;
     private User currentUser; // Session management
 
     public AuthService() {
         this.userDAO = new UserDAO();
+        this.loginThrottle = new LoginThrottle(Constants.LOGIN_MAX_FAILURES,
+            Duration.ofMinutes(Constants.LOGIN_FAILURE_WINDOW_MINUTES));
     }
 
     /**
-     * Register a new user
+     * Outcome of a registration: the new user, or why there is none
+     */
+    public static class Registration {
+        private final User user;
+        private final String error;
+
+        private Registration(User user, String error) {
+            this.user = user;
+            this.error = error;
+        }
+
+        static Registration created(User user) {
+            return new Registration(user, null);
+        }
+
+        static Registration failed(String error) {
+            return new Registration(null, error);
+        }
+
+        public boolean isSuccess() { return user != null; }
+        public User getUser() { return user; }
+        public String getError() { return error; }
+    }
+
+    /**
+     * Register a new user. Uniqueness of username and email is left to the
+     * database constraints, so this is a single insert with no lookups first.
      * @param username The username
      * @param email The email address
      * @param password The plain text password
-     * @return The created user or empty if registration failed
+     * @return The created user, or the reason registration failed
      */
-    public Optional<User> register(String username, String email, String password) {
+    public Registration register(String username, String email, String password) {
         try {
             // Validate input
             if (username == null || username.trim().isEmpty()) {
                 logger.warn("Registration failed: Username is empty");
-                return Optional.empty();
+                return Registration.failed("Please enter a username");
             }
 
             if (email == null || email.trim().isEmpty()) {
                 logger.warn("Registration failed: Email is empty");
-                return Optional.empty();
+                return Registration.failed("Please enter an email address");
             }
 
             if (!PasswordHasher.isPasswordStrong(password)) {
                 logger.warn("Registration failed: Password is not strong enough");
-                return Optional.empty();
-            }
-
-            // Check if username or email already exists
-            if (userDAO.usernameExists(username)) {
-                logger.warn("Registration failed: Username already exists: {}", username);
-                return Optional.empty();
-            }
-
-            if (userDAO.emailExists(email)) {
-                logger.warn("Registration failed: Email already exists: {}", email);
-                return Optional.empty();
+                return Registration.failed("Password must be at least 8 characters with uppercase, lowercase, and numbers");
             }
 
             // Hash password and create user
             String hashedPassword = PasswordHasher.hashPassword(password);
             User user = new User(username.trim(), email.trim().toLowerCase(), hashedPassword);
 
-            Optional<User> createdUser = userDAO.createUser(user);
-            if (createdUser.isPresent()) {
-                logger.info("User registered successfully: {}", username);
-                return createdUser;
+            switch (userDAO.createUser(user)) {
+                case CREATED:
+                    logger.info("User registered successfully: {}", username);
+                    return Registration.created(user);
+                case USERNAME_TAKEN:
+                    logger.warn("Registration failed: Username already exists: {}", username);
+                    return Registration.failed("Username is already taken");
+                case EMAIL_TAKEN:
+                    logger.warn("Registration failed: Email already exists: {}", email);
+                    return Registration.failed("Email is already registered");
+                case CONFLICT:
+                    logger.warn("Registration failed: Username or email registered concurrently: {}", username);
+                    return Registration.failed("That username or email was just registered. Please choose another.");
+                default:
+                    break;
             }
 
+        } catch (PasswordHasher.BusyException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error during user registration", e);
         }
 
-        return Optional.empty();
+        return Registration.failed("Registration failed. Please try again.");
+    }
+
+    /**
+     * Authenticate a user without remembering the session
+     */
+    public Optional<User> login(String usernameOrEmail, String password) {
+        return login(usernameOrEmail, password, false);
     }
 
     /**
      * Authenticate a user
      * @param usernameOrEmail Username or email
      * @param password Plain text password
+     * @param rememberMe Save a session token so the next start skips the login
      * @return The authenticated user or empty if authentication failed
      */
-    public Optional<User> login(String usernameOrEmail, String password) {
+    public Optional<User> login(String usernameOrEmail, String password, boolean rememberMe) {
         try {
             if (usernameOrEmail == null || usernameOrEmail.trim().isEmpty() ||
                 password == null || password.isEmpty()) {
@@ -84,34 +127,65 @@ public class AuthService {
             }
 
             String identifier = usernameOrEmail.trim();
-            Optional<User> userOpt;
-
-            // Try to find user by email first, then by username
-            if (identifier.contains("@")) {
-                userOpt = userDAO.findByEmail(identifier.toLowerCase());
-            } else {
-                userOpt = userDAO.findByUsername(identifier);
+            if (!loginThrottle.tryAcquire(identifier)) {
+                logger.warn("Login refused: Too many failed attempts for: {}", identifier);
+                return Optional.empty();
             }
 
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-
-                if (PasswordHasher.verifyPassword(password, user.getPasswordHash())) {
-                    // Update last login time
-                    userDAO.updateLastLogin(user.getId());
+            // The reserved attempt is given back if it ends without a verdict
+            boolean settled = false;
+            try {
+                Optional<User> userOpt;
 
-                    // Set current user for session
-                    this.currentUser = user;
+                // Try to find user by email first, then by username
+                if (identifier.contains("@")) {
+                    userOpt = userDAO.findByEmail(identifier.toLowerCase());
+                } else {
+                    userOpt = userDAO.findByUsername(identifier);
+                }
 
-                    logger.info("User logged in successfully: {}", user.getUsername());
-                    return Optional.of(user);
+                if (userOpt.isPresent()) {
+                    User user = userOpt.get();
+
+                    if (PasswordHasher.verifyPassword(password, user.getPasswordHash())) {
+                        loginThrottle.recordSuccess(identifier);
+                        settled = true;
+                        if (PasswordHasher.needsRehash(user.getPasswordHash())) {
+                            rehashInBackground(user, password);
+                        }
+
+                        // Update last login time
+                        userDAO.updateLastLogin(user.getId());
+
+                        // Set current user for session
+                        this.currentUser = user;
+
+                        // A previous remember-me token on this machine is replaced or dropped
+                        revokeSavedSession();
+                        if (rememberMe) {
+                            rememberSession(user);
+                        }
+
+                        logger.info("User logged in successfully: {}", user.getUsername());
+                        return Optional.of(user);
+                    } else {
+                        loginThrottle.recordFailure(identifier);
+                        settled = true;
+                        logger.warn("Login failed: Invalid password for user: {}", identifier);
+                    }
                 } else {
-                    logger.warn("Login failed: Invalid password for user: {}", identifier);
+                    loginThrottle.recordFailure(identifier);
+                    settled = true;
+                    logger.warn("Login failed: User not found: {}", identifier);
+                }
+            } finally {
+                if (!settled) {
+                    loginThrottle.release(identifier);
                 }
-            } else {
-                logger.warn("Login failed: User not found: {}", identifier);
             }
 
+        } catch (PasswordHasher.BusyException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error during user login", e);
         }
@@ -120,9 +194,108 @@ public class AuthService {
     }
 
     /**
-     * Log out the current user
+     * Re-hash a password at the current cost after a successful login. The
+     * login does not wait for it; if the pool is busy it is tried again next time.
+     * The new hash only replaces the one that was verified, so a password
+     * change that lands first wins.
+     */
+    private void rehashInBackground(User user, String password) {
+        String verifiedHash = user.getPasswordHash();
+        PasswordHasher.hashPasswordAsync(password)
+            .thenCompose(newHash -> AsyncDAO.getInstance()
+                .users(dao -> dao.replacePasswordHash(user.getId(), verifiedHash, newHash) ? newHash : null))
+            .whenCompleteAsync((newHash, error) -> {
+                if (error != null) {
+                    logger.debug("Password rehash skipped for user {}: {}", user.getUsername(), error.getMessage());
+                } else if (newHash == null) {
+                    logger.debug("Password rehash for user {} lost to a concurrent change", user.getUsername());
+                } else if (verifiedHash.equals(user.getPasswordHash())) {
+                    user.setPasswordHash(newHash);
+                    logger.info("Rehashed password for user {} from cost {} to {}", user.getUsername(),
+                        PasswordHasher.costOf(verifiedHash), PasswordHasher.costOf(newHash));
+                }
+            }, SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Seconds until usernameOrEmail may try to log in again after too many
+     * failed attempts; 0 if it is not throttled
+     */
+    public long getLoginRetryDelaySeconds(String usernameOrEmail) {
+        if (usernameOrEmail == null || usernameOrEmail.trim().isEmpty()) {
+            return 0;
+        }
+        long millis = loginThrottle.retryAfterMillis(usernameOrEmail.trim());
+        return (millis + 999) / 1000;
+    }
+
+    /**
+     * Whether this machine has a remember-me token to try
+     */
+    public boolean hasSavedSession() {
+        return SessionTokens.load().isPresent();
+    }
+
+    /**
+     * Look up the saved remember-me token: one indexed lookup, no password.
+     * Nobody is logged in until the caller passes the user to {@link #startSession(User)}.
+     * @return The user of the session, or empty if there is no live session
+     */
+    public Optional<User> findSavedSession() {
+        Optional<String> token = SessionTokens.load();
+        if (token.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Optional<User> userOpt = userDAO.findBySession(SessionTokens.hash(token.get()));
+        if (userOpt.isEmpty()) {
+            // Expired or revoked; the next login replaces it
+            logger.info("Saved session is no longer valid");
+        }
+        return userOpt;
+    }
+
+    /**
+     * Make a user found by {@link #findSavedSession()} the current one
+     */
+    public void startSession(User user) {
+        this.currentUser = user;
+        logger.info("Session resumed for user: {}", user.getUsername());
+    }
+
+    private void rememberSession(User user) {
+        String token = SessionTokens.generate();
+        if (userDAO.createSession(user.getId(), SessionTokens.hash(token), Constants.SESSION_TTL_DAYS)
+                && SessionTokens.save(token)) {
+            logger.debug("Session saved for user: {}", user.getUsername());
+        }
+    }
+
+    private void revokeSavedSession() {
+        Optional<String> token = SessionTokens.load();
+        if (token.isPresent()) {
+            userDAO.revokeSession(SessionTokens.hash(token.get()));
+            SessionTokens.clear();
+        }
+    }
+
+    /**
+     * Log out the current user, revoking this machine's remember-me session
      */
     public void logout() {
+        Optional<String> token = SessionTokens.load();
+        if (token.isPresent()) {
+            // Logout runs on the EDT; the token is gone locally either way
+            SessionTokens.clear();
+            byte[] tokenHash = SessionTokens.hash(token.get());
+            AsyncDAO.getInstance().users(dao -> dao.revokeSession(tokenHash))
+                .whenComplete((revoked, error) -> {
+                    if (error != null) {
+                        logger.warn("Could not revoke session on logout", error);
+                    }
+                });
+        }
+
         if (currentUser != null) {
             logger.info("User logged out: {}", currentUser.getUsername());
             currentUser = null;
@@ -162,19 +335,45 @@ public class AuthService {
             return false;
         }
 
-        if (!PasswordHasher.verifyPassword(currentPassword, currentUser.getPasswordHash())) {
+        String username = currentUser.getUsername();
+        if (!loginThrottle.tryAcquire(username)) {
+            logger.warn("Password change refused: Too many failed attempts for: {}", username);
+            return false;
+        }
+
+        boolean verified;
+        try {
+            verified = PasswordHasher.verifyPassword(currentPassword, currentUser.getPasswordHash());
+        } catch (RuntimeException e) {
+            loginThrottle.release(username);
+            throw e;
+        }
+        if (verified) {
+            loginThrottle.recordSuccess(username);
+        } else {
+            loginThrottle.recordFailure(username);
             logger.warn("Password change failed: Current password is incorrect");
             return false;
         }
 
         try {
             String newHashedPassword = PasswordHasher.hashPassword(newPassword);
-            currentUser.setPasswordHash(newHashedPassword);
 
-            if (userDAO.updateUser(currentUser)) {
+            if (userDAO.updatePasswordHash(currentUser.getId(), newHashedPassword)) {
+                currentUser.setPasswordHash(newHashedPassword);
+
+                // Sign out every other device; keep this one remembered if it was
+                boolean remembered = hasSavedSession();
+                userDAO.revokeAllSessions(currentUser.getId());
+                SessionTokens.clear();
+                if (remembered) {
+                    rememberSession(currentUser);
+                }
                 logger.info("Password changed successfully for user: {}", currentUser.getUsername());
                 return true;
             }
+        } catch (PasswordHasher.BusyException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Error changing password for user: {}", currentUser.getUsername(), e);
         }
@@ -183,7 +382,8 @@ public class AuthService {
     }
 
     /**
-     * Validate user registration data
+     * Validate the format of user registration data. Whether the username and
+     * email are free is only known for certain when {@link #register} inserts.
      * @param username Username to validate
      * @param email Email to validate
      * @param password Password to validate
@@ -210,14 +410,6 @@ public class AuthService {
             return "Password must be at least 8 characters with uppercase, lowercase, and numbers";
         }
 
-        if (userDAO.usernameExists(username.trim())) {
-            return "Username is already taken";
-        }
-
-        if (userDAO.emailExists(email.trim().toLowerCase())) {
-            return "Email is already registered";
-        }
-
         return null; // No errors
     }
 }
@@ -0,0 +1,152 @@
+package auth;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sliding-window limit on failed password attempts per identifier (username
+ * or email). Once an identifier has had maxFailures failures within the
+ * window, further attempts are refused until the oldest of them falls out of
+ * the window, without spending a BCrypt verification on them.
+ *
+ * An attempt reserves its slot with {@link #tryAcquire} before verifying and
+ * settles it with {@link #recordSuccess}, {@link #recordFailure} or
+ * {@link #release}. Attempts still being verified count against the limit,
+ * so a parallel burst cannot get more than maxFailures guesses past it.
+ */
+public class LoginThrottle {
+    // Identifiers tracked before stale entries are swept
+    private static final int SWEEP_THRESHOLD = 10_000;
+
+    private final int maxFailures;
+    private final long windowMillis;
+
+    // Identifier -> its recent failures and attempts in progress; only touched inside compute
+    private final Map<String, Attempts> attempts = new ConcurrentHashMap<>();
+
+    public LoginThrottle(int maxFailures, Duration window) {
+        this.maxFailures = maxFailures;
+        this.windowMillis = window.toMillis();
+    }
+
+    /**
+     * How long until the identifier's failures let it try again; 0 if it is not throttled
+     */
+    public long retryAfterMillis(String identifier) {
+        long now = System.currentTimeMillis();
+        long[] retryAfter = {0};
+        attempts.computeIfPresent(key(identifier), (key, state) -> {
+            prune(state, now);
+            if (state.failures.size() >= maxFailures) {
+                retryAfter[0] = state.failures.peekFirst() + windowMillis - now;
+            }
+            return state.isIdle() ? null : state;
+        });
+        return retryAfter[0];
+    }
+
+    /**
+     * Reserve an attempt for the identifier. Returns false, reserving nothing,
+     * if its recent failures plus the attempts in progress reach the limit.
+     */
+    public boolean tryAcquire(String identifier) {
+        long now = System.currentTimeMillis();
+        boolean[] acquired = {false};
+        attempts.compute(key(identifier), (key, state) -> {
+            Attempts current = state != null ? state : new Attempts();
+            prune(current, now);
+            if (current.failures.size() + current.inFlight < maxFailures) {
+                current.inFlight++;
+                acquired[0] = true;
+            }
+            return current.isIdle() ? null : current;
+        });
+
+        if (attempts.size() > SWEEP_THRESHOLD) {
+            sweep(now);
+        }
+        return acquired[0];
+    }
+
+    /**
+     * Settle a reserved attempt as a failed guess
+     */
+    public void recordFailure(String identifier) {
+        long now = System.currentTimeMillis();
+        attempts.compute(key(identifier), (key, state) -> {
+            Attempts current = state != null ? state : new Attempts();
+            prune(current, now);
+            current.settle();
+            current.failures.addLast(now);
+            // Older failures cannot matter once there are maxFailures newer ones
+            while (current.failures.size() > maxFailures) {
+                current.failures.removeFirst();
+            }
+            return current;
+        });
+    }
+
+    /**
+     * Settle a reserved attempt as a successful login, forgetting the identifier's failures
+     */
+    public void recordSuccess(String identifier) {
+        attempts.computeIfPresent(key(identifier), (key, state) -> {
+            state.settle();
+            state.failures.clear();
+            return state.isIdle() ? null : state;
+        });
+    }
+
+    /**
+     * Give back a reserved attempt that ended without checking the password
+     */
+    public void release(String identifier) {
+        long now = System.currentTimeMillis();
+        attempts.computeIfPresent(key(identifier), (key, state) -> {
+            prune(state, now);
+            state.settle();
+            return state.isIdle() ? null : state;
+        });
+    }
+
+    private void sweep(long now) {
+        for (String key : attempts.keySet()) {
+            attempts.computeIfPresent(key, (k, state) -> {
+                prune(state, now);
+                return state.isIdle() ? null : state;
+            });
+        }
+    }
+
+    private void prune(Attempts state, long now) {
+        while (!state.failures.isEmpty() && state.failures.peekFirst() <= now - windowMillis) {
+            state.failures.removeFirst();
+        }
+    }
+
+    private static String key(String identifier) {
+        return identifier.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Times of an identifier's recent failures, oldest first, and how many of its attempts are in progress
+     */
+    private static class Attempts {
+        final Deque<Long> failures = new ArrayDeque<>();
+        int inFlight;
+
+        void settle() {
+            if (inFlight > 0) {
+                inFlight--;
+            }
+        }
+
+        boolean isIdle() {
+            return failures.isEmpty() && inFlight == 0;
+        }
+    }
+}
@@ -3,10 +3,66 @@ package auth;
 import org.mindrot.jbcrypt.BCrypt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import utils.AppConfig;
+import utils.Constants;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt hashing and verification. Every hash runs on a pool with one thread
+ * per core and a bounded queue, so a burst of logins or signups cannot take
+ * more than the machine's cores; requests beyond the queue limit are refused
+ * with a {@link BusyException} instead of piling up.
+ *
+ * The cost factor is calibrated once per process so that a hash takes about
+ * {@link Constants#PASSWORD_HASH_TARGET_MILLIS} on this machine. Each hash
+ * records its own cost in its prefix ($2a$NN$), so hashes made at another
+ * cost still verify, and {@link #needsRehash} tells when to upgrade them.
+ * Hashes are only ever upgraded, never downgraded, so calibration noise
+ * between processes cannot make them flip back and forth.
+ */
 public class PasswordHasher {
     private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
-    private static final int ROUNDS = 12; // BCrypt rounds for hashing strength
+
+    // $2a$, $2b$ or $2y$, then the two-digit cost
+    private static final Pattern HASH_COST = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$");
+
+    // BCrypt cost for new hashes; 0 until calibrated
+    private static volatile int cost;
+
+    private static final int HASH_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final ThreadPoolExecutor HASH_EXECUTOR = new ThreadPoolExecutor(
+        HASH_THREADS, HASH_THREADS, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(Constants.PASSWORD_HASH_QUEUE_LIMIT),
+        r -> {
+            Thread thread = new Thread(r, "password-hash-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+
+    /**
+     * Thrown when too many hashes are already running or waiting
+     */
+    public static class BusyException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        BusyException(String message) {
+            super(message);
+        }
+    }
 
     /**
      * Hash a password using BCrypt
@@ -19,17 +75,37 @@ public class PasswordHasher {
         }
 
         try {
-            String hashedPassword = BCrypt.hashpw(plainPassword, BCrypt.gensalt(ROUNDS));
+            String hashedPassword = runBounded(() -> BCrypt.hashpw(plainPassword, BCrypt.gensalt(getCost())));
             logger.debug("Password hashed successfully");
             return hashedPassword;
-        } catch (Exception e) {
-            logger.error("Error hashing password", e);
-            throw new RuntimeException("Failed to hash password", e);
+        } catch (ExecutionException e) {
+            logger.error("Error hashing password", e.getCause());
+            throw new RuntimeException("Failed to hash password", e.getCause());
+        }
+    }
+
+    /**
+     * Hash a password in the background, for work nobody is waiting on. The
+     * future fails with {@link BusyException} if the queue is full.
+     */
+    public static CompletableFuture<String> hashPasswordAsync(String plainPassword) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        try {
+            HASH_EXECUTOR.execute(() -> {
+                try {
+                    result.complete(BCrypt.hashpw(plainPassword, BCrypt.gensalt(getCost())));
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new BusyException("Too many password checks in progress"));
         }
+        return result;
     }
 
     /**
-     * Verify a password against its hash
+     * Verify a password against its hash, at whatever cost the hash was made with
      * @param plainPassword The plain text password to verify
      * @param hashedPassword The stored hash to verify against
      * @return true if password matches, false otherwise
@@ -40,15 +116,116 @@ public class PasswordHasher {
         }
 
         try {
-            boolean matches = BCrypt.checkpw(plainPassword, hashedPassword);
+            boolean matches = runBounded(() -> BCrypt.checkpw(plainPassword, hashedPassword));
             logger.debug("Password verification result: {}", matches);
             return matches;
-        } catch (Exception e) {
-            logger.error("Error verifying password", e);
+        } catch (ExecutionException e) {
+            logger.error("Error verifying password", e.getCause());
             return false;
         }
     }
 
+    /**
+     * The cost factor stored in a BCrypt hash, or -1 if it is not one
+     */
+    public static int costOf(String hashedPassword) {
+        if (hashedPassword == null) {
+            return -1;
+        }
+        Matcher matcher = HASH_COST.matcher(hashedPassword);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    /**
+     * Whether a hash was made at a lower cost than new hashes use. Always
+     * false before calibration has finished, so logins never wait for it.
+     */
+    public static boolean needsRehash(String hashedPassword) {
+        int current = cost;
+        return current != 0 && costOf(hashedPassword) < current;
+    }
+
+    /**
+     * Start calibrating on the hash pool, so the first signup or rehash does
+     * not have to wait for it
+     */
+    public static void calibrateAsync() {
+        try {
+            HASH_EXECUTOR.execute(PasswordHasher::getCost);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Hash pool busy; cost will be calibrated on first use");
+        }
+    }
+
+    /**
+     * The cost for new hashes, calibrating on first use
+     */
+    static int getCost() {
+        int current = cost;
+        if (current == 0) {
+            synchronized (PasswordHasher.class) {
+                if (cost == 0) {
+                    cost = calibrate();
+                }
+                current = cost;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Time a hash at the minimum cost and pick the cost closest to the target.
+     * Each step up in cost doubles the work.
+     */
+    private static int calibrate() {
+        int targetMillis = AppConfig.getInstance().getInt("auth.hashTargetMillis", Constants.PASSWORD_HASH_TARGET_MILLIS);
+        int minCost = Constants.PASSWORD_HASH_MIN_COST;
+        String salt = BCrypt.gensalt(minCost);
+
+        // The first run includes class loading and JIT warm-up
+        BCrypt.hashpw("calibration", salt);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double millis = Math.max(best / 1_000_000.0, 0.1);
+        int steps = (int) Math.round(Math.log(targetMillis / millis) / Math.log(2));
+        int calibrated = Math.max(minCost, Math.min(Constants.PASSWORD_HASH_MAX_COST, minCost + steps));
+        logger.info("BCrypt cost {} chosen for a {} ms target (cost {} took {} ms)",
+            calibrated, targetMillis, minCost, Math.round(millis));
+        return calibrated;
+    }
+
+    /**
+     * Run a hash on the bounded pool and wait for it
+     * @throws BusyException if the queue is full or the hash did not finish in time
+     */
+    private static <T> T runBounded(Callable<T> task) throws ExecutionException {
+        Future<T> future;
+        try {
+            future = HASH_EXECUTOR.submit(task);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Password hashing queue is full ({} waiting)", HASH_EXECUTOR.getQueue().size());
+            throw new BusyException("Too many password checks in progress");
+        }
+
+        try {
+            return future.get(Constants.PASSWORD_HASH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            // Drops it from the queue if it has not started yet
+            future.cancel(true);
+            logger.warn("Password hash did not finish within {}s", Constants.PASSWORD_HASH_TIMEOUT_SECONDS);
+            throw new BusyException("Password check timed out");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusyException("Interrupted waiting for password check");
+        }
+    }
+
     /**
      * Check if a password meets security requirements
      * @param password The password to validate
@@ -0,0 +1,100 @@
+package auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.Constants;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Remember-me tokens. A token is 256 random bits; the client keeps it in
+ * ~/{@link Constants#USER_DATA_DIR}/{@link Constants#SESSION_FILE}, away from
+ * the working directory, and the database keeps only its SHA-256, so
+ * checking one is a single indexed lookup instead of a BCrypt verification.
+ */
+public class SessionTokens {
+    private static final Logger logger = LoggerFactory.getLogger(SessionTokens.class);
+
+    private static final Path TOKEN_FILE = Paths.get(System.getProperty("user.home"),
+        Constants.USER_DATA_DIR, Constants.SESSION_FILE);
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private SessionTokens() {
+    }
+
+    public static String generate() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * What the database stores for a token
+     */
+    public static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * The token saved on this machine, if any
+     */
+    public static Optional<String> load() {
+        if (!Files.isRegularFile(TOKEN_FILE)) {
+            return Optional.empty();
+        }
+        try {
+            String token = Files.readString(TOKEN_FILE, StandardCharsets.UTF_8).trim();
+            return token.isEmpty() ? Optional.empty() : Optional.of(token);
+        } catch (IOException e) {
+            logger.warn("Could not read {}", TOKEN_FILE.toAbsolutePath(), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Save the token through a temporary file that only the current user can read
+     */
+    public static boolean save(String token) {
+        try {
+            Files.createDirectories(TOKEN_FILE.getParent());
+            Path temp = FileSystems.getDefault().supportedFileAttributeViews().contains("posix")
+                ? Files.createTempFile(TOKEN_FILE.getParent(), "session", ".tmp",
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")))
+                : Files.createTempFile(TOKEN_FILE.getParent(), "session", ".tmp");
+            try {
+                Files.writeString(temp, token, StandardCharsets.UTF_8);
+                Files.move(temp, TOKEN_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("Could not write {}", TOKEN_FILE.toAbsolutePath(), e);
+            return false;
+        }
+    }
+
+    public static void clear() {
+        try {
+            Files.deleteIfExists(TOKEN_FILE);
+        } catch (IOException e) {
+            logger.warn("Could not delete {}", TOKEN_FILE.toAbsolutePath(), e);
+        }
+    }
+}
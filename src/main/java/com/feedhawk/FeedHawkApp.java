@@ -3,10 +3,17 @@ package com.feedhawk;
 import ui.LoginScreen;
 import ui.StreamlinedMainWindow;
 import auth.AuthController;
+import auth.PasswordHasher;
+import db.AsyncDAO;
+import db.DBConnection;
+import db.RetentionJob;
 import db.models.User;
+import utils.AppConfig;
+import utils.Constants;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main application launcher for FeedHawk RSS Reader
@@ -14,21 +21,38 @@ import java.awt.*;
  */
 public class FeedHawkApp {
     public static void main(String[] args) {
-        // Start the application on EDT
-        SwingUtilities.invokeLater(() -> {
-            AuthController authController = AuthController.getInstance();
-            
-            // Check if user is already logged in (session)
-            User currentUser = authController.getCurrentUser();
-            
-            if (currentUser != null) {
-                // User is already logged in, go straight to main window
-                launchMainApplication();
-            } else {
-                // Show login screen first
-                launchLoginScreen();
-            }
-        });
+        // Connect and migrate the schema while the first window is being built
+        DBConnection.initializeAsync();
+
+        // Time BCrypt on this machine before anyone signs up or logs in
+        PasswordHasher.calibrateAsync();
+
+        // Roll the partition horizon forward now, then expire old partitions periodically
+        AppConfig config = AppConfig.getInstance();
+        new RetentionJob(config.getInt("retention.months", Constants.FEED_ITEM_RETENTION_MONTHS),
+            config.getInt("retention.partitionsAhead", Constants.FEED_ITEM_PARTITIONS_AHEAD),
+            config.getBoolean("retention.dropExpired", Constants.FEED_ITEM_RETENTION_DROP))
+            .start(0, config.getLong("retention.intervalMinutes", Constants.RETENTION_INTERVAL_MINUTES));
+
+        AuthController authController = AuthController.getInstance();
+        if (!authController.hasSavedSession()) {
+            // Show login screen first
+            SwingUtilities.invokeLater(FeedHawkApp::launchLoginScreen);
+            return;
+        }
+
+        // Remembered session: a token lookup instead of a password, then straight to the main window
+        AsyncDAO.getInstance()
+            .supply(authController::resumeSession, Constants.DB_QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .whenCompleteAsync((result, error) -> {
+                User currentUser = error == null && result.isSuccess() ? result.getUser() : null;
+                if (currentUser != null) {
+                    authController.startSession(currentUser);
+                    launchMainApplication();
+                } else {
+                    launchLoginScreen();
+                }
+            }, SwingUtilities::invokeLater);
     }
     
     public static void launchLoginScreen() {
@@ -0,0 +1,128 @@
+package db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.AppConfig;
+import utils.Constants;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous facade over the DAOs. Queries run on a dedicated JDBC executor
+ * with one thread per pooled connection, so they never block the caller (in
+ * particular the EDT) and independent queries run concurrently.
+ *
+ * Cancelling a returned future, or letting it time out, cancels the query:
+ * a queued query never runs, and a running one is cancelled on the server
+ * through Statement.cancel() (see {@link QueryScope}), which frees its
+ * connection. Statements run under a timeout also get a matching query timeout.
+ */
+public class AsyncDAO {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncDAO.class);
+    private static AsyncDAO instance;
+
+    private final ExecutorService executor;
+    private final FeedDAO feedDAO;
+    private final UserDAO userDAO;
+
+    private AsyncDAO() {
+        int threads = AppConfig.getInstance().getInt("db.pool.maxSize", 10);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "jdbc-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.feedDAO = new FeedDAO();
+        this.userDAO = new UserDAO();
+        logger.debug("Async DAO executor started with {} threads", threads);
+    }
+
+    /**
+     * Singleton pattern for global access
+     */
+    public static synchronized AsyncDAO getInstance() {
+        if (instance == null) {
+            instance = new AsyncDAO();
+        }
+        return instance;
+    }
+
+    /**
+     * Run a FeedDAO call on the JDBC executor, with the default query timeout
+     */
+    public <T> CompletableFuture<T> feeds(Function<FeedDAO, T> call) {
+        return supply(() -> call.apply(feedDAO), Constants.DB_QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Run a UserDAO call on the JDBC executor, with the default query timeout
+     */
+    public <T> CompletableFuture<T> users(Function<UserDAO, T> call) {
+        return supply(() -> call.apply(userDAO), Constants.DB_QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Run any database work on the JDBC executor, failing with a
+     * TimeoutException (and cancelling the work) if it takes longer than timeout
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> work, long timeout, TimeUnit unit) {
+        return submit(work, unit.toNanos(timeout)).orTimeout(timeout, unit);
+    }
+
+    /**
+     * Run any database work on the JDBC executor without a timeout
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> work) {
+        return submit(work, 0);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> work, long timeoutNanos) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        QueryScope scope = new QueryScope(timeoutNanos);
+        FutureTask<T> task = new FutureTask<>(() -> scope.run(work)) {
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    result.complete(get());
+                } catch (ExecutionException e) {
+                    result.completeExceptionally(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    result.completeExceptionally(e);
+                }
+            }
+        };
+
+        // Propagate cancellation and timeouts of the future to the query. The
+        // interrupt only reaches work that is not blocked in a socket read
+        result.whenComplete((value, error) -> {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (cause instanceof CancellationException || cause instanceof TimeoutException) {
+                task.cancel(true);
+                scope.cancel();
+            }
+        });
+
+        executor.execute(task);
+        return result;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
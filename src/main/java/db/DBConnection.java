@@ -4,301 +4,191 @@ import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import utils.AppConfig;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.SQLException;
-
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Connection pool access. The pool and schema migrations are set up
+ * asynchronously by {@link #initializeAsync()} (started from main so it
+ * overlaps with the login screen); getConnection() waits for that to finish.
+ * Settings come from feedhawk.properties (see {@link AppConfig}). When
+ * db.replica.url is set, a second read-only pool serves getReadConnection().
+ * Pooled connections are instrumented with {@link QueryMetrics} (one per pool,
+ * exposed over JMX next to Hikari's pool MBeans) unless db.metrics.enabled=false.
+ */
 public class DBConnection {
     private static final Logger logger = LoggerFactory.getLogger(DBConnection.class);
-    private static HikariDataSource dataSource;
-
-    // Database configuration
+    private static volatile HikariDataSource dataSource;
+    private static volatile HikariDataSource readDataSource;
+    // What callers get connections from: the pools above, instrumented when metrics are on
+    private static volatile DataSource connections;
+    private static volatile DataSource readConnections;
+    private static final List<QueryMetrics> metrics = new CopyOnWriteArrayList<>();
+    private static CompletableFuture<Void> ready;
+
+    // Defaults used when feedhawk.properties does not set a key
     private static final String DB_URL = "jdbc:postgresql://localhost:5432/feedhawk?currentSchema=feedhawk";
     private static final String DB_USERNAME = "feedhawk_user";
     private static final String DB_PASSWORD = "feedhawk_pass";
-    private static final String SCHEMA_NAME = "feedhawk";
 
-    static {
-        initializeDataSource();
+    /**
+     * Start creating the pool and migrating the schema on a background thread.
+     * Safe to call repeatedly; a failed attempt is retried on the next call.
+     */
+    public static synchronized CompletableFuture<Void> initializeAsync() {
+        if (ready == null || ready.isCompletedExceptionally()) {
+            ready = CompletableFuture.runAsync(DBConnection::initializeDataSource, r -> {
+                Thread thread = new Thread(r, "db-init");
+                thread.setDaemon(true);
+                thread.start();
+            });
+        }
+        return ready;
     }
 
     private static void initializeDataSource() {
         try {
-            HikariConfig config = new HikariConfig();
-            config.setJdbcUrl(DB_URL);
-            config.setUsername(DB_USERNAME);
-            config.setPassword(DB_PASSWORD);
-
-            // Connection pool settings
-            config.setMaximumPoolSize(10);
-            config.setMinimumIdle(5);
-            config.setConnectionTimeout(30000); // 30 seconds
-            config.setIdleTimeout(600000); // 10 minutes
-            config.setMaxLifetime(1800000); // 30 minutes
-            config.setLeakDetectionThreshold(60000); // 1 minute
-
-            // PostgreSQL-specific performance settings
-            config.addDataSourceProperty("cachePrepStmts", "true");
-            config.addDataSourceProperty("prepStmtCacheSize", "250");
-            config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-            config.addDataSourceProperty("useServerPrepStmts", "true");
-
-            dataSource = new HikariDataSource(config);
-            logger.info("Database connection pool initialized successfully");
+            AppConfig appConfig = AppConfig.getInstance();
+            String username = appConfig.getString("db.username", DB_USERNAME);
+            String password = appConfig.getString("db.password", DB_PASSWORD);
+
+            HikariConfig config = createPoolConfig("feedhawk-primary", appConfig.getString("db.url", DB_URL),
+                username, password, "db.pool", 10, 5);
+            HikariDataSource pool = new HikariDataSource(config);
+            logger.info("Database connection pool initialized successfully (max {} connections)",
+                config.getMaximumPoolSize());
+
+            try (Connection conn = pool.getConnection()) {
+                SchemaMigrations.migrate(conn);
+            } catch (SQLException e) {
+                pool.close();
+                throw e;
+            }
+            connections = instrument(pool, config.getPoolName());
+            dataSource = pool;
 
-            // Create tables if they don't exist
-            createSchemaAndTablesIfNotExists();
+            if (appConfig.isSet("db.replica.url")) {
+                initializeReadDataSource(appConfig, username, password, config.getMaximumPoolSize());
+            }
 
         } catch (Exception e) {
-            logger.error("Failed to initialize database connection pool", e);
+            logger.error("Failed to initialize database", e);
             throw new RuntimeException("Database initialization failed", e);
         }
     }
 
     /**
-     * Creates schema and all necessary tables if they don't exist
+     * The read pool is optional: if the replica is unreachable, reads stay on the primary
      */
-    private static void createSchemaAndTablesIfNotExists() {
-        logger.info("Checking and creating database schema and tables if needed...");
-        
-        try (Connection conn = dataSource.getConnection()) {
-            // First create the schema if it doesn't exist
-            createSchemaIfNotExists(conn);
-            
-            // Create tables in order due to foreign key dependencies
-            createUsersTable(conn);
-            createListsTable(conn);
-            createSourcesTable(conn);
-            createSubscriptionsTable(conn);
-            createFeedItemsTable(conn);
-            createReadStatusTable(conn);
-            createUserBookmarksTable(conn);
-            
-            // Insert default data
-            insertDefaultSources(conn);
-            createDefaultUser(conn);
-            
-            logger.info("Database schema verification completed successfully");
-            
-        } catch (SQLException e) {
-            logger.error("Failed to create database schema/tables", e);
-            throw new RuntimeException("Database schema creation failed", e);
-        }
-    }
-    
-    private static void createSchemaIfNotExists(Connection conn) throws SQLException {
-        String sql = "CREATE SCHEMA IF NOT EXISTS " + SCHEMA_NAME;
-        try (var stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            logger.info("Schema '{}' ensured to exist", SCHEMA_NAME);
+    private static void initializeReadDataSource(AppConfig appConfig, String username, String password, int primaryMaxSize) {
+        try {
+            HikariConfig config = createPoolConfig("feedhawk-replica", appConfig.getString("db.replica.url", null),
+                appConfig.getString("db.replica.username", username),
+                appConfig.getString("db.replica.password", password),
+                "db.replica.pool", primaryMaxSize, 2);
+            config.setReadOnly(true);
+            HikariDataSource replica = new HikariDataSource(config);
+            readConnections = instrument(replica, config.getPoolName());
+            readDataSource = replica;
+            logger.info("Read replica pool initialized (max {} connections)", config.getMaximumPoolSize());
+        } catch (Exception e) {
+            logger.warn("Read replica unavailable, routing reads to the primary", e);
         }
     }
 
-    private static void createUsersTable(Connection conn) throws SQLException {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS users (
-                user_id SERIAL PRIMARY KEY,
-                username VARCHAR(50) UNIQUE NOT NULL,
-                email VARCHAR(100) UNIQUE NOT NULL,
-                password_hash TEXT NOT NULL,
-                created_at TIMESTAMP DEFAULT NOW(),
-                last_login TIMESTAMP NULL
-            )
-            """;
-        try (var stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            logger.debug("Users table verified/created");
-        }
-    }
+    private static HikariConfig createPoolConfig(String poolName, String url, String username, String password,
+                                                 String prefix, int defaultMaxSize, int defaultMinIdle) {
+        AppConfig appConfig = AppConfig.getInstance();
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
 
-    private static void createListsTable(Connection conn) throws SQLException {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS lists (
-                list_id SERIAL PRIMARY KEY,
-                user_id INT NOT NULL REFERENCES users(user_id) ON DELETE CASCADE,
-                name VARCHAR(50) NOT NULL,
-                is_default BOOLEAN DEFAULT FALSE,
-                created_at TIMESTAMP DEFAULT NOW()
-            )
-            """;
-        try (var stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            logger.debug("Lists table verified/created");
-        }
-    }
+        // Connection pool settings
+        config.setMaximumPoolSize(appConfig.getInt(prefix + ".maxSize", defaultMaxSize));
+        config.setMinimumIdle(appConfig.getInt(prefix + ".minIdle", defaultMinIdle));
+        config.setConnectionTimeout(appConfig.getLong(prefix + ".connectionTimeoutMs", 30000)); // 30 seconds
+        config.setIdleTimeout(appConfig.getLong(prefix + ".idleTimeoutMs", 600000)); // 10 minutes
+        config.setMaxLifetime(appConfig.getLong(prefix + ".maxLifetimeMs", 1800000)); // 30 minutes
+        config.setLeakDetectionThreshold(appConfig.getLong(prefix + ".leakDetectionMs", 60000)); // 1 minute
+        config.setRegisterMbeans(true);
 
-    private static void createSourcesTable(Connection conn) throws SQLException {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS sources (
-                source_id SERIAL PRIMARY KEY,
-                name VARCHAR(100) NOT NULL,
-                url TEXT UNIQUE NOT NULL,
-                description TEXT,
-                category VARCHAR(50),
-                is_active BOOLEAN DEFAULT TRUE,
-                created_at TIMESTAMP DEFAULT NOW()
-            )
-            """;
-        try (var stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            logger.debug("Sources table verified/created");
-        }
+        // PostgreSQL-specific performance settings
+        config.addDataSourceProperty("cachePrepStmts", "true");
+        config.addDataSourceProperty("prepStmtCacheSize", "250");
+        config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        config.addDataSourceProperty("useServerPrepStmts", "true");
+        return config;
     }
 
-    private static void createSubscriptionsTable(Connection conn) throws SQLException {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS subscriptions (
-                sub_id SERIAL PRIMARY KEY,
-                list_id INT NOT NULL REFERENCES lists(list_id) ON DELETE CASCADE,
-                source_id INT NOT NULL REFERENCES sources(source_id) ON DELETE CASCADE,
-                subscribed_at TIMESTAMP DEFAULT NOW(),
-                UNIQUE(list_id, source_id)
-            )
-            """;
-        try (var stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            logger.debug("Subscriptions table verified/created");
+    private static DataSource instrument(HikariDataSource pool, String poolName) {
+        AppConfig appConfig = AppConfig.getInstance();
+        if (!appConfig.getBoolean("db.metrics.enabled", true)) {
+            return pool;
         }
+        QueryMetrics poolMetrics = new QueryMetrics(poolName, appConfig.getLong("db.metrics.slowQueryMs", 500));
+        poolMetrics.register();
+        metrics.add(poolMetrics);
+        return InstrumentedDataSource.wrap(pool, poolMetrics);
     }
 
-    private static void createFeedItemsTable(Connection conn) throws SQLException {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS feed_items (
-                feed_id SERIAL PRIMARY KEY,
-                source_id INT NOT NULL REFERENCES sources(source_id) ON DELETE CASCADE,
-                title TEXT NOT NULL,
-                content TEXT,
-                summary TEXT,
-                url TEXT UNIQUE NOT NULL,
-                published_at TIMESTAMP,
-                created_at TIMESTAMP DEFAULT NOW(),
-                UNIQUE(source_id, url)
-            )
-            """;
-        try (var stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            logger.debug("Feed items table verified/created");
-        }
+    public static Connection getConnection() throws SQLException {
+        awaitReady();
+        return QueryScope.track(connections.getConnection());
     }
 
-    private static void createReadStatusTable(Connection conn) throws SQLException {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS read_status (
-                status_id SERIAL PRIMARY KEY,
-                user_id INT NOT NULL REFERENCES users(user_id) ON DELETE CASCADE,
-                feed_id INT NOT NULL REFERENCES feed_items(feed_id) ON DELETE CASCADE,
-                is_read BOOLEAN DEFAULT FALSE,
-                marked_read_at TIMESTAMP,
-                UNIQUE(user_id, feed_id)
-            )
-            """;
-        try (var stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            logger.debug("Read status table verified/created");
-        }
+    /**
+     * Connection for read-only queries that can tolerate replication lag
+     * (timelines, search). Falls back to the primary when no replica is configured.
+     */
+    public static Connection getReadConnection() throws SQLException {
+        awaitReady();
+        DataSource replica = readConnections;
+        return QueryScope.track(replica != null ? replica.getConnection() : connections.getConnection());
     }
 
-    private static void createUserBookmarksTable(Connection conn) throws SQLException {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS user_bookmarks (
-                bookmark_id SERIAL PRIMARY KEY,
-                user_id INT NOT NULL REFERENCES users(user_id) ON DELETE CASCADE,
-                feed_id INT NOT NULL REFERENCES feed_items(feed_id) ON DELETE CASCADE,
-                created_at TIMESTAMP DEFAULT NOW(),
-                UNIQUE(user_id, feed_id)
-            )
-            """;
-        try (var stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            logger.debug("User bookmarks table verified/created");
-        }
+    /**
+     * A connection to the primary outside the pool, for long-lived sessions such as
+     * LISTEN that would otherwise hold a pool slot (and trip leak detection).
+     * The caller must close it.
+     */
+    public static Connection openDedicatedConnection() throws SQLException {
+        awaitReady();
+        return DriverManager.getConnection(dataSource.getJdbcUrl(), dataSource.getUsername(), dataSource.getPassword());
     }
 
-    private static void insertDefaultSources(Connection conn) throws SQLException {
-        // Check if sources already exist
-        String checkSql = "SELECT COUNT(*) FROM sources";
-        try (var stmt = conn.createStatement(); 
-             var rs = stmt.executeQuery(checkSql)) {
-            if (rs.next() && rs.getInt(1) > 0) {
-                logger.debug("Default sources already exist, skipping insertion");
-                return;
-            }
+    /**
+     * Block until the pool is up and the schema is migrated
+     */
+    private static void awaitReady() throws SQLException {
+        if (dataSource != null) {
+            return;
         }
-
-        // Insert default RSS sources
-        String sql = """
-            INSERT INTO sources (name, url, description, category) VALUES
-            ('TechCrunch', 'https://techcrunch.com/feed/', 'Latest technology news and startup information', 'Tech'),
-            ('BBC News', 'http://feeds.bbci.co.uk/news/rss.xml', 'Latest breaking news and top stories', 'News'),
-            ('Reuters', 'https://feeds.reuters.com/reuters/topNews', 'International breaking news and headlines', 'News'),
-            ('The Verge', 'https://www.theverge.com/rss/index.xml', 'Technology, science, art, and culture', 'Tech'),
-            ('Ars Technica', 'http://feeds.arstechnica.com/arstechnica/index', 'In-depth technology analysis and reviews', 'Tech'),
-            ('NASA News', 'https://www.nasa.gov/rss/dyn/breaking_news.rss', 'Latest space and astronomy news', 'Science')
-            """;
-        
-        try (var stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            logger.info("Default RSS sources inserted successfully");
+        try {
+            initializeAsync().join();
+        } catch (CompletionException e) {
+            throw new SQLException("Database is not available", e.getCause());
         }
     }
 
-    private static void createDefaultUser(Connection conn) throws SQLException {
-        // Check if users already exist
-        String checkSql = "SELECT COUNT(*) FROM users";
-        try (var stmt = conn.createStatement(); 
-             var rs = stmt.executeQuery(checkSql)) {
-            if (rs.next() && rs.getInt(1) > 0) {
-                logger.debug("Users already exist, skipping default user creation");
-                return;
-            }
-        }
-
-        // Create default demo user (password: demo123)
-        // Using BCrypt hash for "demo123"
-        String hashedPassword = "$2a$10$N9qo8uLOickgx2ZMRZoMye7l6R2LAGhjDr/i3uFJaG/nNd5Kf4Z8q";
-        
-        String userSql = """
-            INSERT INTO users (username, email, password_hash, created_at) 
-            VALUES ('demo', 'demo@feedhawk.com', ?, NOW())
-            """;
-        
-        try (var stmt = conn.prepareStatement(userSql)) {
-            stmt.setString(1, hashedPassword);
-            stmt.executeUpdate();
-            logger.info("Default demo user created (username: demo, password: demo123)");
-        }
-
-        // Create default "Home" list for the demo user
-        String listSql = """
-            INSERT INTO lists (user_id, name, is_default, created_at) 
-            VALUES (1, 'Home', true, NOW())
-            """;
-        
-        try (var stmt = conn.createStatement()) {
-            stmt.execute(listSql);
-            logger.info("Default 'Home' list created for demo user");
+    public static void close() {
+        for (QueryMetrics poolMetrics : metrics) {
+            poolMetrics.unregister();
         }
-
-        // Subscribe demo user to some default sources
-        String subscriptionSql = """
-            INSERT INTO subscriptions (list_id, source_id, subscribed_at) 
-            SELECT 1, source_id, NOW() FROM sources WHERE category IN ('News', 'Tech') LIMIT 4
-            """;
-        
-        try (var stmt = conn.createStatement()) {
-            stmt.execute(subscriptionSql);
-            logger.info("Default subscriptions created for demo user");
+        metrics.clear();
+        if (readDataSource != null && !readDataSource.isClosed()) {
+            readDataSource.close();
+            logger.info("Read replica pool closed");
         }
-    }
-
-    public static Connection getConnection() throws SQLException {
-        if (dataSource == null) {
-            throw new SQLException("DataSource is not initialized");
-        }
-        return dataSource.getConnection();
-    }
-
-    public static void close() {
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
             logger.info("Database connection pool closed");
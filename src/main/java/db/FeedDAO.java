@@ -4,12 +4,21 @@ import db.models.Feed;
 import db.models.Article;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import utils.Constants;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.regex.Pattern;
 
 public class FeedDAO {
     private static final Logger logger = LoggerFactory.getLogger(FeedDAO.class);
@@ -24,6 +33,12 @@ public class FeedDAO {
     private static final String FIND_SOURCE_BY_URL =
         "SELECT source_id, name, url, description, category, is_active, created_at FROM sources WHERE url = ?";
 
+    private static final String UPDATE_SOURCE =
+        "UPDATE sources SET name = ?, url = ?, description = ?, category = ?, is_active = ? WHERE source_id = ?";
+
+    // Sources rarely change, so lookups by id/url are served from memory
+    private static final SourceCache sourceCache = new SourceCache(Constants.SOURCE_CACHE_SIZE);
+
     private static final String GET_USER_FEEDS =
         "SELECT s.source_id, s.name, s.url, s.description, s.category, s.is_active, s.created_at " +
         "FROM sources s " +
@@ -36,6 +51,37 @@ public class FeedDAO {
         "SELECT source_id, name, url, description, category, is_active, created_at " +
         "FROM sources WHERE category = ? AND is_active = true ORDER BY name";
 
+    private static final String GET_ACTIVE_SOURCES =
+        "SELECT source_id, name, url, description, category, is_active, created_at " +
+        "FROM sources WHERE is_active = true";
+
+    private static final String FIND_SOURCE_IDS_BY_URL =
+        "SELECT source_id, url FROM sources WHERE url = ANY(?)";
+
+    // Bulk create: rows that already exist are skipped, and both kinds come back with their ids
+    private static final String CREATE_SOURCES =
+        "WITH input AS (" +
+        "  SELECT * FROM unnest(?::text[], ?::text[], ?::text[], ?::text[]) AS t(name, url, description, category)" +
+        "), inserted AS (" +
+        "  INSERT INTO sources (name, url, description, category, created_at) " +
+        "  SELECT name, url, description, category, NOW() FROM input " +
+        "  ON CONFLICT (url) DO NOTHING RETURNING source_id, url" +
+        ") " +
+        "SELECT source_id, url, true AS created FROM inserted " +
+        "UNION ALL SELECT s.source_id, s.url, false FROM sources s JOIN input i ON s.url = i.url";
+
+    private static final String SUBSCRIBE_ALL_TO_LIST =
+        "INSERT INTO subscriptions (list_id, source_id) SELECT ?, unnest(?::int[]) " +
+        "ON CONFLICT (list_id, source_id) DO NOTHING";
+
+    private static final String GET_SUBSCRIPTIONS_FOR_EXPORT =
+        "SELECT l.name AS list_name, s.source_id, s.name, s.url, s.description, s.category, s.is_active, s.created_at " +
+        "FROM lists l " +
+        "JOIN subscriptions sub ON sub.list_id = l.list_id " +
+        "JOIN sources s ON s.source_id = sub.source_id " +
+        "WHERE l.user_id = ? " +
+        "ORDER BY l.is_default DESC, l.name, s.name";
+
     private static final String SUBSCRIBE_TO_FEED =
         "INSERT INTO subscriptions (list_id, source_id) VALUES (?, ?) ON CONFLICT (list_id, source_id) DO NOTHING";
 
@@ -43,17 +89,96 @@ public class FeedDAO {
         "DELETE FROM subscriptions WHERE list_id = ? AND source_id = ?";
 
     // Article/Feed Items queries
+    // feed_items is partitioned and can't carry a unique constraint without published_at,
+    // so the dedup key (source_id, guid_hash) lives in feed_item_keys, which also hands
+    // out the feed_id. Items whose normalized URL is already stored are skipped too.
+    // The full body goes to feed_item_bodies in the same statement; feed_items keeps
+    // only the short preview the timeline shows, plus the search document.
     private static final String INSERT_ARTICLE =
-        "INSERT INTO feed_items (source_id, title, content, summary, url, published_at, created_at) " +
-        "VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT (source_id, url) DO NOTHING RETURNING feed_id";
+        "WITH item_key AS (" +
+        "INSERT INTO feed_item_keys (source_id, guid_hash, feed_id) " +
+        "SELECT ?, ?, nextval(pg_get_serial_sequence('feed_items', 'feed_id')) " +
+        "WHERE NOT EXISTS (SELECT 1 FROM feed_item_keys WHERE source_id = ? AND guid_hash = ?) " +
+        "AND NOT EXISTS (SELECT 1 FROM feed_items WHERE source_id = ? AND url_hash = ?) " +
+        "ON CONFLICT (source_id, guid_hash) DO NOTHING RETURNING feed_id), " +
+        "item AS (" +
+        "INSERT INTO feed_items (feed_id, source_id, title, preview, summary, url, published_at, created_at, " +
+        "search_vector, guid, guid_hash, url_hash) " +
+        "SELECT k.feed_id, ?, ?, ?, ?, ?, COALESCE(?::timestamp, NOW()), ?::timestamp, " +
+        "setweight(to_tsvector('english', coalesce(?::text, '')), 'A') || " +
+        "setweight(to_tsvector('english', coalesce(?::text, '')), 'B'), " +
+        "?, ?, ? FROM item_key k RETURNING feed_id), " +
+        "body AS (INSERT INTO feed_item_bodies (feed_id, content) SELECT feed_id, ?::text FROM item) " +
+        "SELECT feed_id FROM item";
+
+    private static final String GET_ARTICLE_CONTENT =
+        "SELECT content FROM feed_item_bodies WHERE feed_id = ?";
+
+    private static final Pattern HTML_TAGS = Pattern.compile("<[^>]*>");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // Timeline rows carry the user's read/saved state (params: user, user, user)
+    private static final String TIMELINE_COLUMNS =
+        "SELECT f.feed_id, f.source_id, f.title, f.preview, f.url, f.published_at, f.created_at, " +
+        "s.name as source_name, " +
+        "EXISTS (SELECT 1 FROM read_status r WHERE r.user_id = ? AND r.feed_id = f.feed_id AND r.is_read) AS is_read, " +
+        "EXISTS (SELECT 1 FROM user_bookmarks b WHERE b.user_id = ? AND b.feed_id = f.feed_id) AS is_saved " +
+        "FROM feed_items f " +
+        "JOIN sources s ON f.source_id = s.source_id " +
+        "WHERE f.source_id IN (SELECT source_id FROM subscriptions sub JOIN lists l ON sub.list_id = l.list_id WHERE l.user_id = ?) ";
+
+    // Timeline pages are composed from TIMELINE_COLUMNS, an optional list or
+    // bookmark filter and an optional (published_at, feed_id) keyset position
+    private static final String TIMELINE_LIST_FILTER =
+        "AND f.source_id IN (SELECT source_id FROM subscriptions WHERE list_id = ?) ";
+
+    private static final String TIMELINE_SAVED_FILTER =
+        "AND EXISTS (SELECT 1 FROM user_bookmarks b WHERE b.user_id = ? AND b.feed_id = f.feed_id) ";
+
+    private static final String TIMELINE_AFTER =
+        "AND (f.published_at, f.feed_id) < (?, ?) ";
+
+    private static final String TIMELINE_ORDER =
+        "ORDER BY f.published_at DESC, f.feed_id DESC LIMIT ?";
 
-    private static final String GET_RECENT_ARTICLES =
-        "SELECT f.feed_id, f.source_id, f.title, f.content, f.summary, f.url, f.published_at, f.created_at, " +
-        "s.name as source_name FROM feed_items f " +
+    private static final String GET_LIST_SOURCES =
+        "SELECT l.list_id, sub.source_id FROM lists l " +
+        "LEFT JOIN subscriptions sub ON sub.list_id = l.list_id " +
+        "WHERE l.user_id = ?";
+
+    // Pseudo list ids for getTimeline (real list ids start at 1)
+    public static final int TIMELINE_ALL = 0;
+    public static final int TIMELINE_SAVED = -1;
+
+    // Items inserted after a known feed_id, for merging pushed updates into a timeline
+    private static final String GET_ARTICLES_SINCE =
+        TIMELINE_COLUMNS +
+        "AND f.source_id = ANY(?) AND f.feed_id > ? " +
+        "ORDER BY f.published_at DESC LIMIT ?";
+
+    private static final String NOTIFY_NEW_ITEMS = "SELECT pg_notify(?, ?)";
+
+    // Matches come from the GIN index on search_vector; the newest candidates are
+    // ranked and paged with a (rank, feed_id) keyset cursor
+    private static final String SEARCH_CANDIDATES =
+        "SELECT f.feed_id, f.source_id, f.title, f.preview, f.url, f.published_at, f.created_at, " +
+        "s.name as source_name, ts_rank(f.search_vector, q.query) AS rank " +
+        "FROM feed_items f " +
         "JOIN sources s ON f.source_id = s.source_id " +
-        "WHERE f.source_id IN (SELECT source_id FROM subscriptions sub JOIN lists l ON sub.list_id = l.list_id WHERE l.user_id = ?) " +
+        "CROSS JOIN websearch_to_tsquery('english', ?) AS q(query) " +
+        "WHERE f.search_vector @@ q.query " +
+        "AND f.source_id IN (SELECT source_id FROM subscriptions sub JOIN lists l ON sub.list_id = l.list_id WHERE l.user_id = ?) " +
         "ORDER BY f.published_at DESC LIMIT ?";
 
+    private static final String SEARCH_ARTICLES =
+        "SELECT * FROM (" + SEARCH_CANDIDATES + ") ranked " +
+        "ORDER BY rank DESC, feed_id DESC LIMIT ?";
+
+    private static final String SEARCH_ARTICLES_AFTER =
+        "SELECT * FROM (" + SEARCH_CANDIDATES + ") ranked " +
+        "WHERE rank < ? OR (rank = ? AND feed_id < ?) " +
+        "ORDER BY rank DESC, feed_id DESC LIMIT ?";
+
     public Optional<Feed> createSource(Feed feed) {
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(INSERT_SOURCE)) {
@@ -74,6 +199,7 @@ public class FeedDAO {
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
                 feed.setId(rs.getInt("source_id"));
+                sourceCache.put(feed);
                 logger.info("Source created successfully: {}", feed.getTitle());
                 return Optional.of(feed);
             }
@@ -85,6 +211,10 @@ public class FeedDAO {
     }
 
     public Optional<Feed> findSourceById(int sourceId) {
+        Optional<Feed> cached = sourceCache.getById(sourceId);
+        if (cached.isPresent()) {
+            return cached;
+        }
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(FIND_SOURCE_BY_ID)) {
 
@@ -92,7 +222,9 @@ public class FeedDAO {
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                return Optional.of(mapResultSetToFeed(rs));
+                Feed feed = mapResultSetToFeed(rs);
+                sourceCache.put(feed);
+                return Optional.of(feed);
             }
 
         } catch (SQLException e) {
@@ -102,6 +234,10 @@ public class FeedDAO {
     }
 
     public Optional<Feed> findSourceByUrl(String url) {
+        Optional<Feed> cached = sourceCache.getByUrl(url);
+        if (cached.isPresent()) {
+            return cached;
+        }
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(FIND_SOURCE_BY_URL)) {
 
@@ -109,7 +245,9 @@ public class FeedDAO {
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                return Optional.of(mapResultSetToFeed(rs));
+                Feed feed = mapResultSetToFeed(rs);
+                sourceCache.put(feed);
+                return Optional.of(feed);
             }
 
         } catch (SQLException e) {
@@ -118,6 +256,35 @@ public class FeedDAO {
         return Optional.empty();
     }
 
+    /**
+     * Update a source's metadata. Other clients keep their cached copy until restart,
+     * which is fine for names and descriptions.
+     */
+    public boolean updateSource(Feed feed) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_SOURCE)) {
+
+            stmt.setString(1, feed.getTitle());
+            stmt.setString(2, feed.getUrl());
+            stmt.setString(3, feed.getDescription());
+            stmt.setString(4, feed.getCategory());
+            stmt.setBoolean(5, feed.isActive());
+            stmt.setInt(6, feed.getId());
+
+            int rowsAffected = stmt.executeUpdate();
+            sourceCache.invalidate(feed.getId());
+            if (rowsAffected > 0) {
+                logger.info("Source updated: {}", feed.getTitle());
+                return true;
+            }
+
+        } catch (SQLException e) {
+            sourceCache.invalidate(feed.getId());
+            logger.error("Error updating source: {}", feed.getId(), e);
+        }
+        return false;
+    }
+
     public List<Feed> getUserFeeds(int userId) {
         List<Feed> feeds = new ArrayList<>();
         try (Connection conn = DBConnection.getConnection();
@@ -127,7 +294,9 @@ public class FeedDAO {
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
-                feeds.add(mapResultSetToFeed(rs));
+                Feed feed = mapResultSetToFeed(rs);
+                sourceCache.put(feed);
+                feeds.add(feed);
             }
 
         } catch (SQLException e) {
@@ -145,7 +314,9 @@ public class FeedDAO {
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
-                feeds.add(mapResultSetToFeed(rs));
+                Feed feed = mapResultSetToFeed(rs);
+                sourceCache.put(feed);
+                feeds.add(feed);
             }
 
         } catch (SQLException e) {
@@ -154,6 +325,170 @@ public class FeedDAO {
         return feeds;
     }
 
+    /**
+     * Every active source, for the local discovery index. Not added to the
+     * source cache, which would only churn it.
+     */
+    public List<Feed> getActiveSources() {
+        List<Feed> feeds = new ArrayList<>();
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(GET_ACTIVE_SOURCES)) {
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                feeds.add(mapResultSetToFeed(rs));
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error getting active sources", e);
+        }
+        return feeds;
+    }
+
+    /**
+     * Ids of the sources that exist for these URLs, by URL
+     */
+    public Map<String, Integer> findSourceIdsByUrl(Collection<String> urls) {
+        Map<String, Integer> ids = new HashMap<>();
+        if (urls.isEmpty()) {
+            return ids;
+        }
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_SOURCE_IDS_BY_URL)) {
+
+            stmt.setArray(1, conn.createArrayOf("text", urls.toArray()));
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                ids.put(rs.getString("url"), rs.getInt("source_id"));
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error looking up {} sources by url", urls.size(), e);
+        }
+        return ids;
+    }
+
+    /**
+     * Create many sources with one statement per batch. Sources whose URL
+     * already exists are left as they are; the new ones get their id set and
+     * go into the source cache. Returns the id of every source, new or
+     * existing, by URL; a batch that fails is missing from the result.
+     */
+    public Map<String, Integer> createSources(List<Feed> feeds) {
+        Map<String, Integer> ids = new HashMap<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(CREATE_SOURCES)) {
+
+            for (int start = 0; start < feeds.size(); start += Constants.BULK_BATCH_SIZE) {
+                List<Feed> batch = feeds.subList(start, Math.min(start + Constants.BULK_BATCH_SIZE, feeds.size()));
+                String[] names = new String[batch.size()];
+                String[] urls = new String[batch.size()];
+                String[] descriptions = new String[batch.size()];
+                String[] categories = new String[batch.size()];
+                Map<String, Feed> batchByUrl = new HashMap<>();
+                for (int i = 0; i < batch.size(); i++) {
+                    Feed feed = batch.get(i);
+                    names[i] = truncate(feed.getTitle(), 100);
+                    urls[i] = feed.getUrl();
+                    descriptions[i] = feed.getDescription();
+                    categories[i] = truncate(feed.getCategory(), 50);
+                    batchByUrl.put(feed.getUrl(), feed);
+                }
+                stmt.setArray(1, conn.createArrayOf("text", names));
+                stmt.setArray(2, conn.createArrayOf("text", urls));
+                stmt.setArray(3, conn.createArrayOf("text", descriptions));
+                stmt.setArray(4, conn.createArrayOf("text", categories));
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        String url = rs.getString("url");
+                        int sourceId = rs.getInt("source_id");
+                        ids.put(url, sourceId);
+                        if (rs.getBoolean("created")) {
+                            // Write through like createSource; cached existing sources are still right
+                            Feed feed = batchByUrl.get(url);
+                            feed.setId(sourceId);
+                            feed.setTitle(truncate(feed.getTitle(), 100));
+                            feed.setCategory(truncate(feed.getCategory(), 50));
+                            if (feed.getCreatedAt() == null) {
+                                feed.setCreatedAt(LocalDateTime.now());
+                            }
+                            sourceCache.put(feed);
+                        }
+                    }
+                } catch (SQLException e) {
+                    logger.error("Error creating a batch of {} sources", batch.size(), e);
+                }
+            }
+            logger.info("Created or found {} of {} sources", ids.size(), feeds.size());
+
+        } catch (SQLException e) {
+            logger.error("Error creating {} sources", feeds.size(), e);
+        }
+        return ids;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    /**
+     * Subscribe a list to many sources in one statement; existing subscriptions
+     * are kept. Returns how many were added, or -1 on error.
+     */
+    public int subscribeAllToList(int listId, Collection<Integer> sourceIds) {
+        if (sourceIds.isEmpty()) {
+            return 0;
+        }
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(SUBSCRIBE_ALL_TO_LIST)) {
+
+            stmt.setInt(1, listId);
+            stmt.setArray(2, conn.createArrayOf("integer", sourceIds.toArray()));
+
+            int added = stmt.executeUpdate();
+            if (added > 0) {
+                UnreadCounters.getInstance().listChanged(listId);
+                TimelineCache.getInstance().listChanged(listId);
+            }
+            logger.info("Subscribed list {} to {} new sources ({} requested)", listId, added, sourceIds.size());
+            return added;
+
+        } catch (SQLException e) {
+            logger.error("Error subscribing list {} to {} sources", listId, sourceIds.size(), e);
+        }
+        return -1;
+    }
+
+    /**
+     * Hand each of a user's subscriptions to consumer as (list name, source),
+     * grouped by list, without loading them all into memory first
+     */
+    public boolean streamSubscriptions(int userId, BiConsumer<String, Feed> consumer) {
+        try (Connection conn = DBConnection.getReadConnection()) {
+            // The driver only fetches in chunks inside a transaction
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(GET_SUBSCRIPTIONS_FOR_EXPORT)) {
+                stmt.setFetchSize(Constants.BULK_BATCH_SIZE);
+                stmt.setInt(1, userId);
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(rs.getString("list_name"), mapResultSetToFeed(rs));
+                    }
+                }
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            return true;
+
+        } catch (SQLException e) {
+            logger.error("Error streaming subscriptions for user: {}", userId, e);
+        }
+        return false;
+    }
+
     public boolean subscribeToFeed(int listId, int sourceId) {
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(SUBSCRIBE_TO_FEED)) {
@@ -163,6 +498,8 @@ public class FeedDAO {
 
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected > 0) {
+                UnreadCounters.getInstance().listChanged(listId);
+                TimelineCache.getInstance().listChanged(listId);
                 logger.info("User subscribed to feed - List: {}, Source: {}", listId, sourceId);
                 return true;
             }
@@ -182,6 +519,8 @@ public class FeedDAO {
 
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected > 0) {
+                UnreadCounters.getInstance().listChanged(listId);
+                TimelineCache.getInstance().listChanged(listId);
                 logger.info("User unsubscribed from feed - List: {}, Source: {}", listId, sourceId);
                 return true;
             }
@@ -218,6 +557,7 @@ public class FeedDAO {
                     ResultSet rs = stmt.executeQuery();
                     if (rs.next()) {
                         listId = rs.getInt("list_id");
+                        TimelineCache.getInstance().listCreated(userId);
                         logger.info("Created Home list for user {}", userId);
                     }
                 }
@@ -238,18 +578,41 @@ public class FeedDAO {
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(INSERT_ARTICLE)) {
 
-            stmt.setInt(1, article.getFeedId()); // This is actually source_id in our schema
-            stmt.setString(2, article.getTitle());
-            stmt.setString(3, article.getContent());
-            stmt.setString(4, article.getDescription()); // Using description as summary for now
-            stmt.setString(5, article.getUrl());
-            stmt.setTimestamp(6, article.getPublishedDate() != null ?
+            int sourceId = article.getFeedId(); // This is actually source_id in our schema
+            String guid = ItemKeys.effectiveGuid(article.getGuid(), article.getUrl());
+            long guidHash = ItemKeys.guidHash(guid);
+            long urlHash = ItemKeys.urlHash(article.getUrl());
+
+            // Dedup keys
+            stmt.setInt(1, sourceId);
+            stmt.setLong(2, guidHash);
+            stmt.setInt(3, sourceId);
+            stmt.setLong(4, guidHash);
+            stmt.setInt(5, sourceId);
+            stmt.setLong(6, urlHash);
+
+            // Item row
+            stmt.setInt(7, sourceId);
+            stmt.setString(8, article.getTitle());
+            stmt.setString(9, buildPreview(article.getDescription(), article.getContent()));
+            stmt.setString(10, article.getDescription()); // Using description as summary for now
+            stmt.setString(11, article.getUrl());
+            stmt.setTimestamp(12, article.getPublishedDate() != null ?
                 Timestamp.valueOf(article.getPublishedDate()) : null);
-            stmt.setTimestamp(7, Timestamp.valueOf(article.getCreatedAt()));
+            stmt.setTimestamp(13, Timestamp.valueOf(article.getCreatedAt()));
+            stmt.setString(14, article.getTitle());
+            stmt.setString(15, article.getContent());
+            stmt.setString(16, guid);
+            stmt.setLong(17, guidHash);
+            stmt.setLong(18, urlHash);
+
+            // Body
+            stmt.setString(19, article.getContent());
 
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
                 article.setId(rs.getInt("feed_id"));
+                UnreadCounters.getInstance().itemInserted(article.getFeedId());
                 logger.debug("Article saved: {}", article.getTitle());
                 return Optional.of(article);
             }
@@ -260,43 +623,256 @@ public class FeedDAO {
         return Optional.empty();
     }
 
-    public List<Article> getRecentArticles(int userId, int limit) {
+    /**
+     * Load an article's full body, which timeline queries leave out
+     */
+    public Optional<String> loadArticleContent(int feedId) {
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(GET_ARTICLE_CONTENT)) {
+
+            stmt.setInt(1, feedId);
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return Optional.ofNullable(rs.getString("content"));
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error loading content for article: {}", feedId, e);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Plain-text preview stored with the item: the summary (or body) without
+     * markup, cut to the length the cards display
+     */
+    static String buildPreview(String summary, String content) {
+        String source = summary != null && !summary.isBlank() ? summary : content;
+        if (source == null) {
+            return null;
+        }
+        String text = WHITESPACE.matcher(HTML_TAGS.matcher(source).replaceAll(" ")).replaceAll(" ").trim();
+        int limit = Constants.ARTICLE_PREVIEW_LENGTH;
+        return text.length() > limit ? text.substring(0, limit).trim() + "..." : text;
+    }
+
+    /**
+     * One page of a user's timeline, newest first. Use {@link TimelineCache} rather
+     * than calling this directly.
+     * @param listId a list id, TIMELINE_ALL for every subscription or TIMELINE_SAVED for bookmarks
+     * @param cursor null for the first page, otherwise the cursor of the previous page
+     */
+    public TimelinePage getTimeline(int userId, int listId, TimelineCursor cursor, int limit) {
         List<Article> articles = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(TIMELINE_COLUMNS);
+        if (listId == TIMELINE_SAVED) {
+            sql.append(TIMELINE_SAVED_FILTER);
+        } else if (listId != TIMELINE_ALL) {
+            sql.append(TIMELINE_LIST_FILTER);
+        }
+        if (cursor != null) {
+            sql.append(TIMELINE_AFTER);
+        }
+        sql.append(TIMELINE_ORDER);
+
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+
+            int i = 1;
+            stmt.setInt(i++, userId);
+            stmt.setInt(i++, userId);
+            stmt.setInt(i++, userId);
+            if (listId == TIMELINE_SAVED) {
+                stmt.setInt(i++, userId);
+            } else if (listId != TIMELINE_ALL) {
+                stmt.setInt(i++, listId);
+            }
+            if (cursor != null) {
+                stmt.setTimestamp(i++, cursor.getPublishedAt());
+                stmt.setInt(i++, cursor.getFeedId());
+            }
+            stmt.setInt(i, limit);
+
+            TimelineCursor next = null;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    articles.add(mapTimelineArticle(rs));
+                    next = new TimelineCursor(rs.getTimestamp("published_at"), rs.getInt("feed_id"));
+                }
+            }
+
+            // A short page means there is nothing left to fetch
+            if (articles.size() < limit) {
+                next = null;
+            }
+            return new TimelinePage(articles, next);
+
+        } catch (SQLException e) {
+            logger.error("Error getting timeline {} for user: {}", listId, userId, e);
+        }
+        return new TimelinePage(articles, null);
+    }
+
+    /**
+     * The sources subscribed in each of a user's lists (empty for lists without subscriptions)
+     */
+    public Map<Integer, Set<Integer>> getListSources(int userId) {
+        Map<Integer, Set<Integer>> listSources = new HashMap<>();
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(GET_RECENT_ARTICLES)) {
+             PreparedStatement stmt = conn.prepareStatement(GET_LIST_SOURCES)) {
 
             stmt.setInt(1, userId);
-            stmt.setInt(2, limit);
             ResultSet rs = stmt.executeQuery();
 
             while (rs.next()) {
-                Article article = new Article();
-                article.setId(rs.getInt("feed_id"));
-                article.setFeedId(rs.getInt("source_id"));
-                article.setTitle(rs.getString("title"));
-                article.setContent(rs.getString("content"));
-                article.setDescription(rs.getString("summary"));
-                article.setUrl(rs.getString("url"));
-
-                Timestamp publishedAt = rs.getTimestamp("published_at");
-                if (publishedAt != null) {
-                    article.setPublishedDate(publishedAt.toLocalDateTime());
+                Set<Integer> sources = listSources.computeIfAbsent(rs.getInt(1), k -> new HashSet<>());
+                int sourceId = rs.getInt(2);
+                if (!rs.wasNull()) {
+                    sources.add(sourceId);
                 }
+            }
 
-                Timestamp createdAt = rs.getTimestamp("created_at");
-                if (createdAt != null) {
-                    article.setCreatedAt(createdAt.toLocalDateTime());
-                }
+        } catch (SQLException e) {
+            logger.error("Error getting list sources for user: {}", userId, e);
+        }
+        return listSources;
+    }
 
-                articles.add(article);
+    /**
+     * Articles of the given sources stored after afterFeedId, newest first
+     */
+    public List<Article> getArticlesSince(int userId, Collection<Integer> sourceIds, int afterFeedId, int limit) {
+        List<Article> articles = new ArrayList<>();
+        if (sourceIds.isEmpty()) {
+            return articles;
+        }
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(GET_ARTICLES_SINCE)) {
+
+            stmt.setInt(1, userId);
+            stmt.setInt(2, userId);
+            stmt.setInt(3, userId);
+            stmt.setArray(4, conn.createArrayOf("integer", sourceIds.toArray()));
+            stmt.setInt(5, afterFeedId);
+            stmt.setInt(6, limit);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                articles.add(mapTimelineArticle(rs));
             }
 
         } catch (SQLException e) {
-            logger.error("Error getting recent articles for user: {}", userId, e);
+            logger.error("Error getting new articles for user: {}", userId, e);
         }
         return articles;
     }
 
+    /**
+     * Tell running clients that sources received new items. Payload is
+     * "instanceId:sourceId,sourceId,..." (see FeedItemListener).
+     */
+    public void notifyNewItems(Collection<Integer> sourceIds) {
+        if (sourceIds.isEmpty()) {
+            return;
+        }
+        TimelineCache.getInstance().sourcesUpdated(sourceIds);
+
+        StringBuilder payload = new StringBuilder(FeedItemListener.INSTANCE_ID).append(':');
+        for (int sourceId : sourceIds) {
+            if (payload.charAt(payload.length() - 1) != ':') {
+                payload.append(',');
+            }
+            payload.append(sourceId);
+        }
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(NOTIFY_NEW_ITEMS)) {
+
+            stmt.setString(1, FeedItemListener.CHANNEL);
+            stmt.setString(2, payload.toString());
+            stmt.execute();
+
+        } catch (SQLException e) {
+            logger.error("Error notifying new items for sources: {}", sourceIds, e);
+        }
+    }
+
+    /**
+     * Full-text search over the articles of the user's subscribed sources,
+     * ranked with ts_rank. Only the newest SEARCH_CANDIDATE_LIMIT matches are
+     * ranked, which keeps common terms fast on large tables.
+     * @param cursor null for the first page, otherwise the cursor of the previous page
+     */
+    public SearchPage searchArticles(int userId, String query, SearchCursor cursor) {
+        List<Article> articles = new ArrayList<>();
+        if (query == null || query.isBlank()) {
+            return new SearchPage(articles, null);
+        }
+
+        String sql = cursor == null ? SEARCH_ARTICLES : SEARCH_ARTICLES_AFTER;
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            stmt.setString(i++, query.trim());
+            stmt.setInt(i++, userId);
+            stmt.setInt(i++, Constants.SEARCH_CANDIDATE_LIMIT);
+            if (cursor != null) {
+                stmt.setFloat(i++, cursor.getRank());
+                stmt.setFloat(i++, cursor.getRank());
+                stmt.setInt(i++, cursor.getFeedId());
+            }
+            stmt.setInt(i, Constants.SEARCH_RESULTS_PAGE_SIZE);
+
+            SearchCursor next = null;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    articles.add(mapResultSetToArticle(rs));
+                    next = new SearchCursor(rs.getFloat("rank"), rs.getInt("feed_id"));
+                }
+            }
+
+            // A short page means there is nothing left to fetch
+            if (articles.size() < Constants.SEARCH_RESULTS_PAGE_SIZE) {
+                next = null;
+            }
+            return new SearchPage(articles, next);
+
+        } catch (SQLException e) {
+            logger.error("Error searching articles for user {}: {}", userId, query, e);
+        }
+        return new SearchPage(articles, null);
+    }
+
+    private Article mapResultSetToArticle(ResultSet rs) throws SQLException {
+        Article article = new Article();
+        article.setId(rs.getInt("feed_id"));
+        article.setFeedId(rs.getInt("source_id"));
+        article.setTitle(rs.getString("title"));
+        // Only the preview is loaded here; the body is fetched with loadArticleContent
+        article.setDescription(rs.getString("preview"));
+        article.setUrl(rs.getString("url"));
+
+        Timestamp publishedAt = rs.getTimestamp("published_at");
+        if (publishedAt != null) {
+            article.setPublishedDate(publishedAt.toLocalDateTime());
+        }
+
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        if (createdAt != null) {
+            article.setCreatedAt(createdAt.toLocalDateTime());
+        }
+
+        return article;
+    }
+
+    private Article mapTimelineArticle(ResultSet rs) throws SQLException {
+        Article article = mapResultSetToArticle(rs);
+        article.setRead(rs.getBoolean("is_read"));
+        article.setSaved(rs.getBoolean("is_saved"));
+        return article;
+    }
+
     private Feed mapResultSetToFeed(ResultSet rs) throws SQLException {
         Feed feed = new Feed();
         feed.setId(rs.getInt("source_id"));
@@ -318,8 +894,20 @@ public class FeedDAO {
     // LIST MANAGEMENT METHODS
     // ==========================================
     
+    // Lists with their subscription counts in one round trip
     private static final String GET_USER_LISTS = 
-        "SELECT list_id, user_id, name, is_default, created_at FROM lists WHERE user_id = ? ORDER BY is_default DESC, name";
+        "SELECT l.list_id, l.user_id, l.name, l.is_default, l.created_at, COUNT(sub.source_id) AS subscription_count " +
+        "FROM lists l LEFT JOIN subscriptions sub ON sub.list_id = l.list_id " +
+        "WHERE l.user_id = ? GROUP BY l.list_id ORDER BY l.is_default DESC, l.name";
+
+    private static final String IS_USER_SUBSCRIBED =
+        "SELECT EXISTS (SELECT 1 FROM subscriptions s JOIN lists l ON s.list_id = l.list_id WHERE l.user_id = ? AND s.source_id = ?)";
+
+    private static final String GET_SUBSCRIBED_URLS =
+        "SELECT DISTINCT src.url FROM sources src " +
+        "JOIN subscriptions s ON s.source_id = src.source_id " +
+        "JOIN lists l ON s.list_id = l.list_id " +
+        "WHERE l.user_id = ?";
     
     private static final String CREATE_LIST = 
         "INSERT INTO lists (user_id, name, is_default, created_at) VALUES (?, ?, ?, NOW()) RETURNING list_id";
@@ -350,8 +938,7 @@ public class FeedDAO {
                     list.setCreatedAt(createdAt.toLocalDateTime());
                 }
                 
-                // Get subscription count for this list
-                list.setSubscriptionCount(getSubscriptionCount(list.getId()));
+                list.setSubscriptionCount(rs.getInt("subscription_count"));
                 
                 lists.add(list);
             }
@@ -382,6 +969,8 @@ public class FeedDAO {
                 list.setDefault(false);
                 list.setCreatedAt(LocalDateTime.now());
                 list.setSubscriptionCount(0); // New list starts with 0 subscriptions
+                UnreadCounters.getInstance().listCreated(userId, list.getId());
+                TimelineCache.getInstance().listCreated(userId);
                 
                 logger.info("Created new list '{}' for user {}", listName, userId);
                 return Optional.of(list);
@@ -398,15 +987,14 @@ public class FeedDAO {
      */
     public boolean isUserSubscribedToFeed(int userId, int sourceId) {
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(
-                 "SELECT COUNT(*) FROM subscriptions s JOIN lists l ON s.list_id = l.list_id WHERE l.user_id = ? AND s.source_id = ?")) {
+             PreparedStatement stmt = conn.prepareStatement(IS_USER_SUBSCRIBED)) {
 
             stmt.setInt(1, userId);
             stmt.setInt(2, sourceId);
 
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                return rs.getInt(1) > 0;
+                return rs.getBoolean(1);
             }
 
         } catch (SQLException e) {
@@ -416,7 +1004,29 @@ public class FeedDAO {
     }
 
     /**
-     * Subscribe a user to a feed in a specific list
+     * URLs of every feed the user is subscribed to, in any list
+     */
+    public Set<String> getSubscribedFeedUrls(int userId) {
+        Set<String> subscribed = new HashSet<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(GET_SUBSCRIBED_URLS)) {
+
+            stmt.setInt(1, userId);
+
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                subscribed.add(rs.getString(1));
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error loading subscribed feed URLs for user {}", userId, e);
+        }
+        return subscribed;
+    }
+
+    /**
+     * Subscribe a user to a feed in a specific list.
+     * Already being subscribed counts as success.
      */
     public boolean subscribeToFeedInList(int listId, int sourceId) {
         try (Connection conn = DBConnection.getConnection();
@@ -427,23 +1037,13 @@ public class FeedDAO {
 
             int rowsAffected = stmt.executeUpdate();
             if (rowsAffected > 0) {
+                UnreadCounters.getInstance().listChanged(listId);
+                TimelineCache.getInstance().listChanged(listId);
                 logger.info("Successfully subscribed to feed - List: {}, Source: {}", listId, sourceId);
-                return true;
             } else {
-                // Check if subscription already exists
-                try (PreparedStatement checkStmt = conn.prepareStatement(
-                    "SELECT COUNT(*) FROM subscriptions WHERE list_id = ? AND source_id = ?")) {
-                    checkStmt.setInt(1, listId);
-                    checkStmt.setInt(2, sourceId);
-                    ResultSet rs = checkStmt.executeQuery();
-                    if (rs.next() && rs.getInt(1) > 0) {
-                        logger.info("Subscription already exists - List: {}, Source: {}", listId, sourceId);
-                        return true; // Already subscribed, that's ok
-                    }
-                }
-                logger.warn("No rows affected when subscribing - List: {}, Source: {}", listId, sourceId);
-                return false;
+                logger.info("Subscription already exists - List: {}, Source: {}", listId, sourceId);
             }
+            return true;
 
         } catch (SQLException e) {
             logger.error("Error subscribing to feed - List: {}, Source: {}", listId, sourceId, e);
@@ -451,47 +1051,39 @@ public class FeedDAO {
         return false;
     }
 
-    /**
-     * Get the count of subscriptions for a specific list
-     */
-    public int getSubscriptionCount(int listId) {
-        String query = "SELECT COUNT(*) FROM subscriptions WHERE list_id = ?";
-        
-        try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
-            
-            stmt.setInt(1, listId);
-            
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1);
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("Error counting subscriptions for list: {}", listId, e);
-        }
-        
-        return 0;
-    }
-
     /**
      * Mark an article as read or unread for a specific user
      */
     public boolean markArticleAsRead(int userId, int feedId, boolean isRead) {
-        String query = "INSERT INTO read_status (user_id, feed_id, is_read, marked_read_at) " +
+        // Report the previous state and the item's source alongside the upsert so the
+        // unread counters can be adjusted exactly (the CTEs all see the pre-upsert snapshot)
+        String query = "WITH prev AS (SELECT is_read FROM read_status WHERE user_id = ? AND feed_id = ?), " +
+                      "upsert AS (INSERT INTO read_status (user_id, feed_id, is_read, marked_read_at) " +
                       "VALUES (?, ?, ?, NOW()) " +
                       "ON CONFLICT (user_id, feed_id) " +
-                      "DO UPDATE SET is_read = EXCLUDED.is_read, marked_read_at = NOW()";
+                      "DO UPDATE SET is_read = EXCLUDED.is_read, marked_read_at = NOW() RETURNING is_read) " +
+                      "SELECT COALESCE((SELECT is_read FROM prev), FALSE) AS was_read, " +
+                      "(SELECT is_read FROM upsert) AS is_read, " +
+                      "(SELECT source_id FROM feed_items WHERE feed_id = ? LIMIT 1) AS source_id";
         
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(query)) {
             
             stmt.setInt(1, userId);
             stmt.setInt(2, feedId);
-            stmt.setBoolean(3, isRead);
+            stmt.setInt(3, userId);
+            stmt.setInt(4, feedId);
+            stmt.setBoolean(5, isRead);
+            stmt.setInt(6, feedId);
             
-            int rowsAffected = stmt.executeUpdate();
-            if (rowsAffected > 0) {
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                boolean wasRead = rs.getBoolean("was_read");
+                int sourceId = rs.getInt("source_id");
+                if (!rs.wasNull() && wasRead != isRead) {
+                    UnreadCounters.getInstance().readStateChanged(userId, sourceId, isRead ? -1 : 1);
+                }
+                TimelineCache.getInstance().readStateChanged(userId, feedId);
                 logger.debug("Article {} marked as {} for user {}", feedId, isRead ? "read" : "unread", userId);
                 return true;
             }
@@ -519,6 +1111,7 @@ public class FeedDAO {
                 stmt.setInt(2, feedId);
                 
                 int rowsAffected = stmt.executeUpdate();
+                TimelineCache.getInstance().savedStateChanged(userId, feedId);
                 logger.debug("Article {} saved for user {}", feedId, userId);
                 return true;
                 
@@ -537,6 +1130,7 @@ public class FeedDAO {
                 
                 int rowsAffected = stmt.executeUpdate();
                 if (rowsAffected > 0) {
+                    TimelineCache.getInstance().savedStateChanged(userId, feedId);
                     logger.debug("Article {} unsaved for user {}", feedId, userId);
                     return true;
                 }
@@ -548,6 +1142,85 @@ public class FeedDAO {
         return false;
     }
 
+    /**
+     * Keyset position after the last result of a search page
+     */
+    public static class SearchCursor {
+        private final float rank;
+        private final int feedId;
+
+        public SearchCursor(float rank, int feedId) {
+            this.rank = rank;
+            this.feedId = feedId;
+        }
+
+        public float getRank() { return rank; }
+        public int getFeedId() { return feedId; }
+    }
+
+    /**
+     * Keyset position after the last article of a timeline page
+     */
+    public static class TimelineCursor {
+        private final Timestamp publishedAt;
+        private final int feedId;
+
+        public TimelineCursor(Timestamp publishedAt, int feedId) {
+            this.publishedAt = publishedAt;
+            this.feedId = feedId;
+        }
+
+        public Timestamp getPublishedAt() { return publishedAt; }
+        public int getFeedId() { return feedId; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TimelineCursor)) return false;
+            TimelineCursor other = (TimelineCursor) o;
+            return feedId == other.feedId && Objects.equals(publishedAt, other.publishedAt);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(publishedAt, feedId);
+        }
+    }
+
+    /**
+     * One page of a timeline
+     */
+    public static class TimelinePage {
+        private final List<Article> articles;
+        private final TimelineCursor next;
+
+        public TimelinePage(List<Article> articles, TimelineCursor next) {
+            this.articles = articles;
+            this.next = next;
+        }
+
+        public List<Article> getArticles() { return articles; }
+        public TimelineCursor getNext() { return next; }
+        public boolean hasMore() { return next != null; }
+    }
+
+    /**
+     * One page of article search results
+     */
+    public static class SearchPage {
+        private final List<Article> articles;
+        private final SearchCursor next;
+
+        public SearchPage(List<Article> articles, SearchCursor next) {
+            this.articles = articles;
+            this.next = next;
+        }
+
+        public List<Article> getArticles() { return articles; }
+        public SearchCursor getNext() { return next; }
+        public boolean hasMore() { return next != null; }
+    }
+
     /**
      * Simple UserList model class
      */
@@ -558,6 +1231,7 @@ public class FeedDAO {
         private boolean isDefault;
         private LocalDateTime createdAt;
         private int subscriptionCount = 0;
+        private int unreadCount = 0;
         
         // Getters and setters
         public int getId() { return id; }
@@ -577,12 +1251,16 @@ public class FeedDAO {
         
         public int getSubscriptionCount() { return subscriptionCount; }
         public void setSubscriptionCount(int subscriptionCount) { this.subscriptionCount = subscriptionCount; }
+
+        public int getUnreadCount() { return unreadCount; }
+        public void setUnreadCount(int unreadCount) { this.unreadCount = unreadCount; }
         
         @Override
         public String toString() {
             String icon = isDefault ? "🏠 " : "📁 ";
             String countText = subscriptionCount > 0 ? " (" + subscriptionCount + ")" : " (0)";
-            return icon + name + countText;
+            String unreadText = unreadCount > 0 ? " • " + unreadCount + " unread" : "";
+            return icon + name + countText + unreadText;
         }
     }
 }
@@ -0,0 +1,138 @@
+package db;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Receives "new items" notifications sent by {@link FeedDAO#notifyNewItems}
+ * from any client sharing the database. Holds one dedicated LISTEN connection
+ * outside the pool and hands each notification to a callback on its own
+ * daemon thread; the connection is re-established if it drops.
+ */
+public class FeedItemListener {
+    private static final Logger logger = LoggerFactory.getLogger(FeedItemListener.class);
+
+    public static final String CHANNEL = "feed_items_new";
+
+    // Identifies notifications sent by this process
+    static final String INSTANCE_ID = UUID.randomUUID().toString();
+
+    private static final int POLL_TIMEOUT_MS = 10000;
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final Consumer<NewItems> callback;
+    private volatile boolean running;
+    private Thread thread;
+
+    public FeedItemListener(Consumer<NewItems> callback) {
+        this.callback = callback;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::listenLoop, "feed-items-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection conn = DBConnection.openDedicatedConnection()) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("LISTEN " + CHANNEL);
+                }
+                logger.info("Listening for new feed items");
+                PGConnection pgConnection = conn.unwrap(PGConnection.class);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        NewItems newItems = NewItems.parse(notification.getParameter());
+                        if (newItems != null) {
+                            dispatch(newItems);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                logger.warn("Feed item listener connection lost, reconnecting in {} ms", RECONNECT_DELAY_MS, e);
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        logger.info("Feed item listener stopped");
+    }
+
+    private void dispatch(NewItems newItems) {
+        try {
+            callback.accept(newItems);
+        } catch (Exception e) {
+            logger.error("Error handling new items for sources {}", newItems.getSourceIds(), e);
+        }
+    }
+
+    /**
+     * Sources that received new items, and whether this process inserted them
+     * (in which case its unread counters already include them)
+     */
+    public static class NewItems {
+        private final Set<Integer> sourceIds;
+        private final boolean local;
+
+        NewItems(Set<Integer> sourceIds, boolean local) {
+            this.sourceIds = Collections.unmodifiableSet(sourceIds);
+            this.local = local;
+        }
+
+        static NewItems parse(String payload) {
+            int separator = payload == null ? -1 : payload.indexOf(':');
+            if (separator < 0) {
+                logger.warn("Ignoring malformed feed item notification: {}", payload);
+                return null;
+            }
+            Set<Integer> sourceIds = new LinkedHashSet<>();
+            for (String id : payload.substring(separator + 1).split(",")) {
+                try {
+                    sourceIds.add(Integer.parseInt(id.trim()));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring invalid source id '{}' in notification", id);
+                }
+            }
+            return new NewItems(sourceIds, INSTANCE_ID.equals(payload.substring(0, separator)));
+        }
+
+        public Set<Integer> getSourceIds() { return sourceIds; }
+        public boolean isLocal() { return local; }
+    }
+}
@@ -0,0 +1,174 @@
+package db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers for the monthly range partitions of the feed_items table.
+ * Each month lives in its own partition named feed_items_yYYYYmMM; rows that
+ * fall outside every monthly range (very old or far-future dates, and
+ * bookmarked items kept by the retention job) land in feed_items_default.
+ */
+public final class FeedItemPartitions {
+    private static final Logger logger = LoggerFactory.getLogger(FeedItemPartitions.class);
+
+    static final String PARENT_TABLE = "feed_items";
+    static final String DEFAULT_PARTITION = "feed_items_default";
+
+    private static final String PARTITION_PREFIX = "feed_items_y";
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyy'm'MM");
+
+    // Serializes partition DDL between clients sharing the same database
+    private static final String PARTITION_LOCK = "SELECT pg_advisory_xact_lock(hashtext('feedhawk.feed_items_partitions'))";
+
+    private static final String LIST_MONTHLY_PARTITIONS =
+        "SELECT c.relname FROM pg_inherits i " +
+        "JOIN pg_class c ON c.oid = i.inhrelid " +
+        "JOIN pg_class p ON p.oid = i.inhparent " +
+        "JOIN pg_namespace n ON n.oid = p.relnamespace " +
+        "WHERE p.relname = '" + PARENT_TABLE + "' AND n.nspname = current_schema() " +
+        "AND c.relname LIKE '" + PARTITION_PREFIX + "%' ORDER BY c.relname";
+
+    // Generated columns are recomputed by the target table and cannot be written
+    private static final String LIST_COPY_COLUMNS =
+        "SELECT column_name FROM information_schema.columns " +
+        "WHERE table_schema = current_schema() AND table_name = '" + PARENT_TABLE + "' " +
+        "AND is_generated = 'NEVER' ORDER BY ordinal_position";
+
+    private FeedItemPartitions() {
+        // Static helpers only
+    }
+
+    public static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(NAME_FORMAT);
+    }
+
+    /**
+     * @return the month a partition covers, or null if the name is not a monthly partition
+     */
+    public static YearMonth monthOf(String partitionName) {
+        if (partitionName == null || !partitionName.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partitionName.substring(PARTITION_PREFIX.length()), NAME_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    public static void ensureDefaultPartition(Connection conn) throws SQLException {
+        String sql = "CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF " + PARENT_TABLE + " DEFAULT";
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    /**
+     * Make sure a monthly partition exists for every month in [from, to]
+     */
+    public static void ensurePartitions(Connection conn, YearMonth from, YearMonth to) throws SQLException {
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            ensurePartition(conn, month);
+        }
+    }
+
+    /**
+     * Create the partition for one month. Rows for that month that were routed to
+     * the default partition in the meantime are moved into the new partition
+     * before it is attached, otherwise the ATTACH would be rejected.
+     */
+    public static void ensurePartition(Connection conn, YearMonth month) throws SQLException {
+        String name = partitionName(month);
+        if (tableExists(conn, name)) {
+            return;
+        }
+
+        String lower = month.atDay(1).toString();
+        String upper = month.plusMonths(1).atDay(1).toString();
+
+        // Join the caller's transaction if there is one, otherwise run in our own
+        boolean ownTransaction = conn.getAutoCommit();
+        if (ownTransaction) {
+            conn.setAutoCommit(false);
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(PARTITION_LOCK);
+
+            // Another client may have created it while we waited for the lock
+            if (!tableExists(conn, name)) {
+                String columns = copyColumns(conn);
+                stmt.execute("CREATE TABLE " + name + " (LIKE " + PARENT_TABLE +
+                    " INCLUDING DEFAULTS INCLUDING CONSTRAINTS INCLUDING GENERATED)");
+                stmt.execute("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION +
+                    " WHERE published_at >= '" + lower + "' AND published_at < '" + upper + "' RETURNING *) " +
+                    "INSERT INTO " + name + " (" + columns + ") SELECT " + columns + " FROM moved");
+                stmt.execute("ALTER TABLE " + PARENT_TABLE + " ATTACH PARTITION " + name +
+                    " FOR VALUES FROM ('" + lower + "') TO ('" + upper + "')");
+                logger.info("Created feed_items partition {}", name);
+            }
+            if (ownTransaction) {
+                conn.commit();
+            }
+        } catch (SQLException e) {
+            if (ownTransaction) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (ownTransaction) {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * @return names of all monthly partitions currently attached, oldest first
+     */
+    public static List<String> listMonthlyPartitions(Connection conn) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(LIST_MONTHLY_PARTITIONS)) {
+            while (rs.next()) {
+                partitions.add(rs.getString(1));
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * The columns to copy when rows move between partitions, in table order.
+     * Read from the table itself, because migrations keep adding columns and
+     * early ones run against a schema that does not have them yet.
+     */
+    static String copyColumns(Connection conn) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(LIST_COPY_COLUMNS)) {
+            while (rs.next()) {
+                columns.add(rs.getString(1));
+            }
+        }
+        return String.join(", ", columns);
+    }
+
+    static boolean tableExists(Connection conn, String tableName) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+            stmt.setString(1, tableName);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+}
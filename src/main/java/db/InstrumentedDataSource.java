@@ -0,0 +1,185 @@
+package db;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Dynamic proxies that time everything going through a DataSource: how long
+ * getConnection() waited for the pool, and how long each statement took and
+ * how many rows it returned or changed. Results go to a {@link QueryMetrics}.
+ *
+ * A query is recorded when its ResultSet is exhausted or closed (or its
+ * statement is closed), so the row count is known; latency is measured up to
+ * the execute call returning, which with pgjdbc's default fetch size includes
+ * transferring the rows.
+ */
+final class InstrumentedDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+        "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private InstrumentedDataSource() {
+        // Static factory only
+    }
+
+    static DataSource wrap(DataSource dataSource, QueryMetrics metrics) {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            if (!method.getName().equals("getConnection")) {
+                return invoke(dataSource, method, args);
+            }
+            long start = System.nanoTime();
+            Connection connection = (Connection) invoke(dataSource, method, args);
+            metrics.recordConnectionWait(System.nanoTime() - start);
+            return wrapConnection(connection, metrics);
+        });
+    }
+
+    private static Connection wrapConnection(Connection connection, QueryMetrics metrics) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            switch (method.getName()) {
+                case "createStatement":
+                    return wrapStatement(Statement.class, (Statement) result, null, metrics);
+                case "prepareStatement":
+                    return wrapStatement(PreparedStatement.class, (Statement) result, (String) args[0], metrics);
+                case "prepareCall":
+                    return wrapStatement(CallableStatement.class, (Statement) result, (String) args[0], metrics);
+                default:
+                    return result;
+            }
+        });
+    }
+
+    private static <T extends Statement> T wrapStatement(Class<T> type, Statement statement, String preparedSql,
+                                                         QueryMetrics metrics) {
+        String preparedTemplate = preparedSql == null ? null : QueryMetrics.template(preparedSql);
+        Execution[] pending = new Execution[1];
+
+        return proxy(type, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.equals("close") && pending[0] != null) {
+                pending[0].finish();
+            }
+            if (!EXECUTE_METHODS.contains(name)) {
+                return invoke(statement, method, args);
+            }
+
+            // Statement.execute*(sql) carries its own SQL; PreparedStatement.execute*() uses the prepared one
+            String template = args != null && args.length > 0 && args[0] instanceof String
+                ? QueryMetrics.template((String) args[0])
+                : preparedTemplate;
+            if (pending[0] != null) {
+                pending[0].finish();
+            }
+
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invoke(statement, method, args);
+            } catch (Throwable e) {
+                metrics.recordExecution(template, System.nanoTime() - start, -1, true);
+                throw e;
+            }
+            Execution execution = new Execution(metrics, template, System.nanoTime() - start);
+
+            if (result instanceof ResultSet) {
+                pending[0] = execution;
+                return wrapResultSet((ResultSet) result, execution);
+            }
+            pending[0] = null;
+            execution.finish(rowCount(result));
+            return result;
+        });
+    }
+
+    private static ResultSet wrapResultSet(ResultSet resultSet, Execution execution) {
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            Object result = invoke(resultSet, method, args);
+            if (method.getName().equals("next")) {
+                if ((Boolean) result) {
+                    execution.rows++;
+                } else {
+                    execution.finish();
+                }
+            } else if (method.getName().equals("close")) {
+                execution.finish();
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Rows affected according to an execute* return value, or -1 if unknown
+     */
+    private static long rowCount(Object result) {
+        if (result instanceof Integer || result instanceof Long) {
+            return ((Number) result).longValue();
+        }
+        if (result instanceof int[]) {
+            long total = 0;
+            for (int count : (int[]) result) {
+                total += Math.max(count, 0);
+            }
+            return total;
+        }
+        if (result instanceof long[]) {
+            long total = 0;
+            for (long count : (long[]) result) {
+                total += Math.max(count, 0);
+            }
+            return total;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * One statement execution, recorded once its row count is known
+     */
+    private static class Execution {
+        private final QueryMetrics metrics;
+        private final String template;
+        private final long nanos;
+        private long rows;
+        private boolean finished;
+
+        Execution(QueryMetrics metrics, String template, long nanos) {
+            this.metrics = metrics;
+            this.template = template;
+            this.nanos = nanos;
+        }
+
+        void finish() {
+            finish(rows);
+        }
+
+        void finish(long rowCount) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            metrics.recordExecution(template, nanos, rowCount, false);
+        }
+    }
+}
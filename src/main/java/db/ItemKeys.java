@@ -0,0 +1,104 @@
+package db;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/**
+ * Fixed-width dedup keys for feed items. GUIDs and URLs are hashed to the first
+ * 64 bits of their SHA-256, so uniqueness checks compare BIGINTs instead of
+ * long TEXT values.
+ */
+final class ItemKeys {
+
+    private ItemKeys() {
+        // Static helpers only
+    }
+
+    /**
+     * The entry's GUID, or its normalized URL when the feed does not provide one
+     */
+    static String effectiveGuid(String guid, String url) {
+        return guid != null && !guid.isBlank() ? guid.trim() : normalizeUrl(url);
+    }
+
+    static long guidHash(String guid) {
+        return hash64(guid);
+    }
+
+    static long urlHash(String url) {
+        return hash64(normalizeUrl(url));
+    }
+
+    /**
+     * Lower-case scheme and host, drop default ports, fragments, tracking
+     * parameters and a trailing slash, so trivially different links hash the same
+     */
+    static String normalizeUrl(String url) {
+        if (url == null) {
+            return "";
+        }
+        String trimmed = url.trim();
+        try {
+            URI uri = new URI(trimmed);
+            if (uri.getScheme() == null || uri.getHost() == null) {
+                return trimmed;
+            }
+            String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            int port = uri.getPort();
+            if (("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443)) {
+                port = -1;
+            }
+            String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+            if (path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+
+            StringBuilder normalized = new StringBuilder()
+                .append(scheme).append("://").append(uri.getHost().toLowerCase(Locale.ROOT));
+            if (port != -1) {
+                normalized.append(':').append(port);
+            }
+            normalized.append(path);
+
+            String query = stripTrackingParameters(uri.getRawQuery());
+            if (!query.isEmpty()) {
+                normalized.append('?').append(query);
+            }
+            return normalized.toString();
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+    }
+
+    private static String stripTrackingParameters(String query) {
+        if (query == null || query.isEmpty()) {
+            return "";
+        }
+        StringBuilder kept = new StringBuilder();
+        for (String param : query.split("&")) {
+            String name = param.toLowerCase(Locale.ROOT);
+            if (param.isEmpty() || name.startsWith("utm_") || name.startsWith("fbclid=") || name.startsWith("gclid=")) {
+                continue;
+            }
+            if (kept.length() > 0) {
+                kept.append('&');
+            }
+            kept.append(param);
+        }
+        return kept.toString();
+    }
+
+    private static long hash64(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
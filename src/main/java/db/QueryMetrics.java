@@ -0,0 +1,291 @@
+package db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Statement timings for one connection pool, collected by {@link InstrumentedDataSource}.
+ * Statements are grouped by SQL template (literals replaced with ?), each with a
+ * latency histogram and row counts. Executions slower than the threshold are
+ * written to the "db.slowquery" logger as key=value lines.
+ */
+public class QueryMetrics implements QueryMetricsMXBean {
+    private static final Logger logger = LoggerFactory.getLogger(QueryMetrics.class);
+    private static final Logger slowQueryLog = LoggerFactory.getLogger("db.slowquery");
+
+    // Histogram bucket upper bounds in milliseconds; the last bucket is unbounded
+    private static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    // Keeps ad-hoc SQL from growing the map without bound
+    private static final int MAX_TEMPLATES = 500;
+    private static final String OTHER_TEMPLATE = "(other)";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final String poolName;
+    private final long slowQueryThresholdNanos;
+    private final ConcurrentHashMap<String, TemplateStats> templates = new ConcurrentHashMap<>();
+    private final LongAdder totalQueries = new LongAdder();
+    private final LongAdder slowQueries = new LongAdder();
+    private final LongAdder connectionsAcquired = new LongAdder();
+    private final LongAdder connectionWaitNanos = new LongAdder();
+    private final LongAccumulator connectionWaitMaxNanos = new LongAccumulator(Math::max, 0);
+    private ObjectName objectName;
+
+    public QueryMetrics(String poolName, long slowQueryThresholdMillis) {
+        this.poolName = poolName;
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis);
+    }
+
+    /**
+     * Normalize SQL to its template: collapsed whitespace, literals replaced with ?
+     */
+    static String template(String sql) {
+        if (sql == null) {
+            return OTHER_TEMPLATE;
+        }
+        String template = STRING_LITERAL.matcher(sql).replaceAll("?");
+        template = NUMBER_LITERAL.matcher(template).replaceAll("?");
+        return WHITESPACE.matcher(template).replaceAll(" ").trim();
+    }
+
+    void recordConnectionWait(long nanos) {
+        connectionsAcquired.increment();
+        connectionWaitNanos.add(nanos);
+        connectionWaitMaxNanos.accumulate(nanos);
+    }
+
+    /**
+     * @param rows rows returned or updated, or -1 if unknown
+     */
+    void recordExecution(String template, long nanos, long rows, boolean failed) {
+        totalQueries.increment();
+        statsFor(template).record(nanos, rows, failed);
+
+        if (nanos >= slowQueryThresholdNanos) {
+            slowQueries.increment();
+            slowQueryLog.warn("slow_query pool={} elapsed_ms={} rows={} failed={} sql=\"{}\"",
+                poolName, TimeUnit.NANOSECONDS.toMillis(nanos), rows, failed, template);
+        }
+    }
+
+    private TemplateStats statsFor(String template) {
+        TemplateStats stats = templates.get(template);
+        if (stats != null) {
+            return stats;
+        }
+        if (templates.size() >= MAX_TEMPLATES) {
+            return templates.computeIfAbsent(OTHER_TEMPLATE, TemplateStats::new);
+        }
+        return templates.computeIfAbsent(template, TemplateStats::new);
+    }
+
+    /**
+     * Expose these metrics over JMX. Failure only loses the JMX view.
+     */
+    void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.zaxxer.hikari:type=QueryMetrics (" + poolName + ")");
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+                objectName = name;
+            }
+        } catch (Exception e) {
+            logger.warn("Could not register query metrics MBean for {}", poolName, e);
+        }
+    }
+
+    void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (Exception e) {
+            logger.debug("Could not unregister query metrics MBean for {}", poolName, e);
+        }
+        objectName = null;
+    }
+
+    @Override
+    public long getTotalQueries() {
+        return totalQueries.sum();
+    }
+
+    @Override
+    public long getSlowQueries() {
+        return slowQueries.sum();
+    }
+
+    @Override
+    public long getSlowQueryThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowQueryThresholdNanos);
+    }
+
+    @Override
+    public long getConnectionsAcquired() {
+        return connectionsAcquired.sum();
+    }
+
+    @Override
+    public double getConnectionWaitAvgMillis() {
+        long count = connectionsAcquired.sum();
+        return count == 0 ? 0 : connectionWaitNanos.sum() / (double) count / 1_000_000;
+    }
+
+    @Override
+    public double getConnectionWaitMaxMillis() {
+        return connectionWaitMaxNanos.get() / 1_000_000.0;
+    }
+
+    @Override
+    public List<TemplateSnapshot> getTemplates() {
+        List<TemplateSnapshot> snapshots = new ArrayList<>();
+        for (TemplateStats stats : templates.values()) {
+            snapshots.add(stats.snapshot());
+        }
+        snapshots.sort(Comparator.comparingDouble(TemplateSnapshot::getTotalMillis).reversed());
+        return snapshots;
+    }
+
+    @Override
+    public void reset() {
+        templates.clear();
+        totalQueries.reset();
+        slowQueries.reset();
+        connectionsAcquired.reset();
+        connectionWaitNanos.reset();
+        connectionWaitMaxNanos.reset();
+    }
+
+    /**
+     * Running totals and latency histogram for one SQL template
+     */
+    private static class TemplateStats {
+        private final String sql;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder rows = new LongAdder();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+
+        TemplateStats(String sql) {
+            this.sql = sql;
+        }
+
+        void record(long nanos, long rowCount, boolean failed) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            if (rowCount > 0) {
+                rows.add(rowCount);
+            }
+            if (failed) {
+                errors.increment();
+            }
+            buckets.incrementAndGet(bucketIndex(TimeUnit.NANOSECONDS.toMillis(nanos)));
+        }
+
+        private static int bucketIndex(long millis) {
+            for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+                if (millis <= BUCKET_BOUNDS_MS[i]) {
+                    return i;
+                }
+            }
+            return BUCKET_BOUNDS_MS.length;
+        }
+
+        /**
+         * Upper bound of the bucket containing the given percentile, in milliseconds
+         */
+        private long percentile(long[] counts, long total, double percentile) {
+            long target = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target && seen > 0) {
+                    return i < BUCKET_BOUNDS_MS.length ? BUCKET_BOUNDS_MS[i] : TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+                }
+            }
+            return 0;
+        }
+
+        TemplateSnapshot snapshot() {
+            long[] counts = new long[buckets.length()];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            return new TemplateSnapshot(sql, count.sum(), errors.sum(), rows.sum(),
+                totalNanos.sum() / 1_000_000.0, maxNanos.get() / 1_000_000.0,
+                percentile(counts, total, 0.50), percentile(counts, total, 0.95), percentile(counts, total, 0.99),
+                counts);
+        }
+    }
+
+    /**
+     * Point-in-time statistics for one SQL template, as exposed over JMX
+     */
+    public static class TemplateSnapshot {
+        private final String sql;
+        private final long count;
+        private final long errors;
+        private final long rows;
+        private final double totalMillis;
+        private final double maxMillis;
+        private final long p50Millis;
+        private final long p95Millis;
+        private final long p99Millis;
+        private final long[] histogram;
+
+        TemplateSnapshot(String sql, long count, long errors, long rows, double totalMillis, double maxMillis,
+                         long p50Millis, long p95Millis, long p99Millis, long[] histogram) {
+            this.sql = sql;
+            this.count = count;
+            this.errors = errors;
+            this.rows = rows;
+            this.totalMillis = totalMillis;
+            this.maxMillis = maxMillis;
+            this.p50Millis = p50Millis;
+            this.p95Millis = p95Millis;
+            this.p99Millis = p99Millis;
+            this.histogram = histogram;
+        }
+
+        public String getSql() { return sql; }
+        public long getCount() { return count; }
+        public long getErrors() { return errors; }
+        public long getRows() { return rows; }
+        public double getTotalMillis() { return totalMillis; }
+        public double getMaxMillis() { return maxMillis; }
+        public double getAvgMillis() { return count == 0 ? 0 : totalMillis / count; }
+        public long getP50Millis() { return p50Millis; }
+        public long getP95Millis() { return p95Millis; }
+        public long getP99Millis() { return p99Millis; }
+
+        /**
+         * Execution counts per latency bucket, matching {@link #getHistogramBoundsMillis()}
+         * plus a final bucket for anything slower
+         */
+        public long[] getHistogram() { return histogram.clone(); }
+        public long[] getHistogramBoundsMillis() { return BUCKET_BOUNDS_MS.clone(); }
+    }
+}
@@ -0,0 +1,29 @@
+package db;
+
+import java.util.List;
+
+/**
+ * JMX view of {@link QueryMetrics}, registered next to the Hikari pool MBeans
+ * as com.zaxxer.hikari:type=QueryMetrics (pool name)
+ */
+public interface QueryMetricsMXBean {
+
+    long getTotalQueries();
+
+    long getSlowQueries();
+
+    long getSlowQueryThresholdMillis();
+
+    long getConnectionsAcquired();
+
+    double getConnectionWaitAvgMillis();
+
+    double getConnectionWaitMaxMillis();
+
+    /**
+     * Per-statement statistics, slowest total time first
+     */
+    List<QueryMetrics.TemplateSnapshot> getTemplates();
+
+    void reset();
+}
@@ -0,0 +1,118 @@
+package db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The statements opened by one {@link AsyncDAO} task, so that cancelling the
+ * task stops its query on the server. pgjdbc ignores thread interrupts while
+ * it waits for a result, so without Statement.cancel() a timed-out query keeps
+ * its pooled connection until the server finishes it.
+ *
+ * Each statement also gets a query timeout for whatever is left of the task's
+ * deadline, which covers a query started just after the task was cancelled.
+ */
+final class QueryScope {
+    private static final Logger logger = LoggerFactory.getLogger(QueryScope.class);
+
+    private static final ThreadLocal<QueryScope> CURRENT = new ThreadLocal<>();
+
+    private final long deadline; // System.nanoTime() by which the task must finish, if hasDeadline
+    private final boolean hasDeadline;
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    /**
+     * @param timeoutNanos how long the task may take, or 0 for no limit
+     */
+    QueryScope(long timeoutNanos) {
+        this.hasDeadline = timeoutNanos > 0;
+        this.deadline = System.nanoTime() + timeoutNanos;
+    }
+
+    /**
+     * Run work on this thread with connections from {@link DBConnection} tracked by this scope
+     */
+    <T> T run(Supplier<T> work) {
+        CURRENT.set(this);
+        try {
+            return work.get();
+        } finally {
+            CURRENT.remove();
+            statements.clear();
+        }
+    }
+
+    /**
+     * Cancel the running statements; statements opened afterwards fail immediately
+     */
+    void cancel() {
+        cancelled = true;
+        for (Statement statement : statements) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                logger.debug("Could not cancel statement", e);
+            }
+        }
+    }
+
+    /**
+     * The connection as is outside a scope; inside one, a view that registers its statements
+     */
+    static Connection track(Connection connection) {
+        QueryScope scope = CURRENT.get();
+        return scope == null ? connection : scope.wrap(connection);
+    }
+
+    private Connection wrap(Connection connection) {
+        List<Statement> opened = new ArrayList<>();
+        return (Connection) Proxy.newProxyInstance(QueryScope.class.getClassLoader(), new Class<?>[]{Connection.class},
+            (proxy, method, args) -> {
+                String name = method.getName();
+                boolean opensStatement = name.equals("createStatement") || name.equals("prepareStatement")
+                    || name.equals("prepareCall");
+                if (opensStatement && cancelled) {
+                    throw new SQLException("Query cancelled", "57014");
+                }
+                if (name.equals("close")) {
+                    // The pool hands the connection to someone else next; never cancel their query
+                    opened.forEach(statements::remove);
+                    opened.clear();
+                }
+
+                Object result;
+                try {
+                    result = method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+                if (opensStatement) {
+                    register((Statement) result);
+                    opened.add((Statement) result);
+                }
+                return result;
+            });
+    }
+
+    private void register(Statement statement) throws SQLException {
+        if (hasDeadline) {
+            long remaining = deadline - System.nanoTime();
+            // Whole seconds, rounded up; 0 would mean no timeout at all
+            statement.setQueryTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remaining + 999_999_999L)));
+        }
+        statements.add(statement);
+    }
+}
@@ -0,0 +1,193 @@
+package db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that removes feed_items partitions older than the configured
+ * retention age, along with their bodies and read status. Bookmarked items in an expiring partition are copied back into
+ * feed_items first (they land in the default partition), so saved articles
+ * survive retention. The job also rolls the partition horizon forward so new
+ * months always have a partition ready before items arrive.
+ */
+public class RetentionJob {
+    private static final Logger logger = LoggerFactory.getLogger(RetentionJob.class);
+
+    // Only one client sharing the database runs retention at a time
+    private static final String RETENTION_LOCK = "SELECT pg_try_advisory_xact_lock(hashtext('feedhawk.feed_items_retention'))";
+
+    private final int retentionMonths;
+    private final int monthsAhead;
+    private final boolean dropExpired;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param retentionMonths how many whole months of items to keep besides the current one
+     * @param monthsAhead how many future monthly partitions to keep pre-created
+     * @param dropExpired drop expired partitions; when false they are only detached and kept as standalone tables
+     */
+    public RetentionJob(int retentionMonths, int monthsAhead, boolean dropExpired) {
+        if (retentionMonths < 1) {
+            throw new IllegalArgumentException("Retention must be at least one month");
+        }
+        this.retentionMonths = retentionMonths;
+        this.monthsAhead = monthsAhead;
+        this.dropExpired = dropExpired;
+    }
+
+    /**
+     * Start running the job periodically on a daemon thread
+     */
+    public synchronized void start(long initialDelayMinutes, long intervalMinutes) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "feed-items-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                runOnce();
+            } catch (Exception e) {
+                logger.error("Feed item retention run failed", e);
+            }
+        }, initialDelayMinutes, intervalMinutes, TimeUnit.MINUTES);
+        logger.info("Feed item retention scheduled: keep {} months, every {} minutes", retentionMonths, intervalMinutes);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Run one retention pass
+     * @return number of partitions removed
+     */
+    public int runOnce() throws SQLException {
+        YearMonth current = YearMonth.now();
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        int removed = 0;
+
+        try (Connection conn = DBConnection.getConnection()) {
+            FeedItemPartitions.ensurePartitions(conn, current, current.plusMonths(monthsAhead));
+
+            for (String partition : FeedItemPartitions.listMonthlyPartitions(conn)) {
+                YearMonth month = FeedItemPartitions.monthOf(partition);
+                if (month != null && month.isBefore(oldestKept)) {
+                    if (expirePartition(conn, partition)) {
+                        removed++;
+                    }
+                }
+            }
+
+            pruneDefaultPartition(conn, oldestKept);
+        }
+
+        if (removed > 0) {
+            // Expired items no longer count as unread
+            UnreadCounters.getInstance().invalidateAll();
+            TimelineCache.getInstance().invalidateAll();
+            logger.info("Retention removed {} feed_items partitions older than {}", removed, oldestKept);
+        }
+        return removed;
+    }
+
+    private boolean expirePartition(Connection conn, String partition) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            if (!tryLock(stmt)) {
+                conn.rollback();
+                logger.debug("Another client is running retention, skipping {}", partition);
+                return false;
+            }
+
+            stmt.execute("ALTER TABLE " + FeedItemPartitions.PARENT_TABLE + " DETACH PARTITION " + partition);
+
+            // Keep bookmarked items: with their monthly range gone they route to the default partition
+            String columns = FeedItemPartitions.copyColumns(conn);
+            int kept = stmt.executeUpdate(
+                "INSERT INTO " + FeedItemPartitions.PARENT_TABLE + " (" + columns + ") " +
+                "SELECT " + columns + " FROM " + partition + " p " +
+                "WHERE EXISTS (SELECT 1 FROM user_bookmarks b WHERE b.feed_id = p.feed_id)");
+
+            stmt.executeUpdate(
+                "DELETE FROM read_status r USING " + partition + " p " +
+                "WHERE r.feed_id = p.feed_id " +
+                "AND NOT EXISTS (SELECT 1 FROM user_bookmarks b WHERE b.feed_id = p.feed_id)");
+
+            stmt.executeUpdate(
+                "DELETE FROM feed_item_bodies fb USING " + partition + " p " +
+                "WHERE fb.feed_id = p.feed_id " +
+                "AND NOT EXISTS (SELECT 1 FROM user_bookmarks b WHERE b.feed_id = p.feed_id)");
+
+            if (dropExpired) {
+                stmt.execute("DROP TABLE " + partition);
+            }
+
+            conn.commit();
+            logger.info("{} partition {} (kept {} bookmarked items)", dropExpired ? "Dropped" : "Detached", partition, kept);
+            return true;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Items that were routed to the default partition (out-of-range dates) expire
+     * by row instead of by partition
+     */
+    private void pruneDefaultPartition(Connection conn, YearMonth oldestKept) throws SQLException {
+        String cutoff = oldestKept.atDay(1).toString();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            if (!tryLock(stmt)) {
+                conn.rollback();
+                return;
+            }
+
+            int deleted = stmt.executeUpdate(
+                "WITH expired AS (" +
+                "  DELETE FROM " + FeedItemPartitions.DEFAULT_PARTITION + " d " +
+                "  WHERE d.published_at < '" + cutoff + "' " +
+                "  AND NOT EXISTS (SELECT 1 FROM user_bookmarks b WHERE b.feed_id = d.feed_id) " +
+                "  RETURNING d.feed_id), " +
+                "bodies AS (DELETE FROM feed_item_bodies fb USING expired e WHERE fb.feed_id = e.feed_id) " +
+                "DELETE FROM read_status r USING expired e WHERE r.feed_id = e.feed_id");
+
+            conn.commit();
+            if (deleted > 0) {
+                logger.debug("Pruned read status for {} expired items in default partition", deleted);
+            }
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private boolean tryLock(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery(RETENTION_LOCK)) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+}
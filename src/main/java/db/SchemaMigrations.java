@@ -0,0 +1,569 @@
+package db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.AppConfig;
+import utils.Constants;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Versioned schema migrations. Applied versions are recorded in
+ * schema_migrations, so an up-to-date database costs a single query at
+ * startup. Each pending migration runs in its own transaction together with
+ * the row that records it.
+ */
+final class SchemaMigrations {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrations.class);
+
+    private static final String SCHEMA_NAME = "feedhawk";
+
+    // Postgres SQLSTATE for "relation does not exist"
+    private static final String UNDEFINED_TABLE = "42P01";
+
+    private static final String CURRENT_VERSION = "SELECT COALESCE(MAX(version), 0) FROM schema_migrations";
+
+    private static final String CREATE_MIGRATIONS_TABLE = """
+        CREATE TABLE IF NOT EXISTS schema_migrations (
+            version INT PRIMARY KEY,
+            description TEXT NOT NULL,
+            applied_at TIMESTAMP DEFAULT NOW()
+        )
+        """;
+
+    private static final String RECORD_MIGRATION =
+        "INSERT INTO schema_migrations (version, description) VALUES (?, ?)";
+
+    // Serializes migrations between clients starting against the same database
+    private static final String MIGRATION_LOCK = "SELECT pg_advisory_lock(hashtext('feedhawk.schema_migrations'))";
+    private static final String MIGRATION_UNLOCK = "SELECT pg_advisory_unlock(hashtext('feedhawk.schema_migrations'))";
+
+    /**
+     * All migrations, oldest first. Never edit or reorder an applied migration;
+     * append a new version instead. The early versions use IF NOT EXISTS so they
+     * also apply cleanly to databases created before migrations were tracked.
+     */
+    private static final List<Migration> MIGRATIONS = List.of(
+        new Migration(1, "Users, lists, sources and subscriptions", conn -> {
+            createUsersTable(conn);
+            createListsTable(conn);
+            createSourcesTable(conn);
+            createSubscriptionsTable(conn);
+        }),
+        new Migration(2, "Partitioned feed_items, read status and bookmarks", conn -> {
+            convertLegacyFeedItemsTable(conn);
+            createFeedItemsTable(conn);
+            createReadStatusTable(conn);
+            createUserBookmarksTable(conn);
+        }),
+        new Migration(3, "Full-text search on feed_items", SchemaMigrations::addFeedItemsSearch),
+        new Migration(4, "Default sources and demo user", conn -> {
+            insertDefaultSources(conn);
+            createDefaultUser(conn);
+        }),
+        new Migration(5, "Article bodies in feed_item_bodies, previews on feed_items", SchemaMigrations::splitFeedItemBodies),
+        new Migration(6, "Entry GUIDs and hashed dedup keys", SchemaMigrations::addFeedItemKeys),
+        new Migration(7, "Remember-me session tokens", SchemaMigrations::createUserSessionsTable)
+    );
+
+    private SchemaMigrations() {
+        // Static helpers only
+    }
+
+    /**
+     * Bring the schema up to the latest version
+     */
+    static void migrate(Connection conn) throws SQLException {
+        int current = currentVersion(conn);
+        int latest = MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+        if (current >= latest) {
+            logger.info("Database schema is up to date (version {})", current);
+            return;
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(MIGRATION_LOCK);
+        }
+        try {
+            // Another client may have migrated while we waited for the lock
+            current = currentVersion(conn);
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version > current) {
+                    apply(conn, migration);
+                }
+            }
+        } finally {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(MIGRATION_UNLOCK);
+            }
+        }
+    }
+
+    /**
+     * @return the highest applied version, 0 for a database that has never been migrated
+     */
+    private static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(CURRENT_VERSION)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            if (!UNDEFINED_TABLE.equals(e.getSQLState())) {
+                throw e;
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE SCHEMA IF NOT EXISTS " + SCHEMA_NAME);
+                stmt.execute(CREATE_MIGRATIONS_TABLE);
+            }
+            logger.info("Created schema_migrations table");
+            return 0;
+        }
+    }
+
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        logger.info("Applying schema migration {}: {}", migration.version, migration.description);
+        conn.setAutoCommit(false);
+        try {
+            migration.step.apply(conn);
+            try (PreparedStatement stmt = conn.prepareStatement(RECORD_MIGRATION)) {
+                stmt.setInt(1, migration.version);
+                stmt.setString(2, migration.description);
+                stmt.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static void createUsersTable(Connection conn) throws SQLException {
+        String sql = """
+            CREATE TABLE IF NOT EXISTS users (
+                user_id SERIAL PRIMARY KEY,
+                username VARCHAR(50) UNIQUE NOT NULL,
+                email VARCHAR(100) UNIQUE NOT NULL,
+                password_hash TEXT NOT NULL,
+                created_at TIMESTAMP DEFAULT NOW(),
+                last_login TIMESTAMP NULL
+            )
+            """;
+        try (var stmt = conn.createStatement()) {
+            stmt.execute(sql);
+            logger.debug("Users table verified/created");
+        }
+    }
+
+    private static void createListsTable(Connection conn) throws SQLException {
+        String sql = """
+            CREATE TABLE IF NOT EXISTS lists (
+                list_id SERIAL PRIMARY KEY,
+                user_id INT NOT NULL REFERENCES users(user_id) ON DELETE CASCADE,
+                name VARCHAR(50) NOT NULL,
+                is_default BOOLEAN DEFAULT FALSE,
+                created_at TIMESTAMP DEFAULT NOW()
+            )
+            """;
+        try (var stmt = conn.createStatement()) {
+            stmt.execute(sql);
+            logger.debug("Lists table verified/created");
+        }
+    }
+
+    private static void createSourcesTable(Connection conn) throws SQLException {
+        String sql = """
+            CREATE TABLE IF NOT EXISTS sources (
+                source_id SERIAL PRIMARY KEY,
+                name VARCHAR(100) NOT NULL,
+                url TEXT UNIQUE NOT NULL,
+                description TEXT,
+                category VARCHAR(50),
+                is_active BOOLEAN DEFAULT TRUE,
+                created_at TIMESTAMP DEFAULT NOW()
+            )
+            """;
+        try (var stmt = conn.createStatement()) {
+            stmt.execute(sql);
+            logger.debug("Sources table verified/created");
+        }
+    }
+
+    private static void createSubscriptionsTable(Connection conn) throws SQLException {
+        String sql = """
+            CREATE TABLE IF NOT EXISTS subscriptions (
+                sub_id SERIAL PRIMARY KEY,
+                list_id INT NOT NULL REFERENCES lists(list_id) ON DELETE CASCADE,
+                source_id INT NOT NULL REFERENCES sources(source_id) ON DELETE CASCADE,
+                subscribed_at TIMESTAMP DEFAULT NOW(),
+                UNIQUE(list_id, source_id)
+            )
+            """;
+        try (var stmt = conn.createStatement()) {
+            stmt.execute(sql);
+            logger.debug("Subscriptions table verified/created");
+        }
+    }
+
+    /**
+     * feed_items is range-partitioned by month on published_at. Postgres requires
+     * the partition key in every unique constraint, so the primary key is
+     * (feed_id, published_at) and read_status/user_bookmarks cannot hold a foreign
+     * key to it; RetentionJob cleans up their rows instead.
+     */
+    private static void createFeedItemsTable(Connection conn) throws SQLException {
+        String sql = """
+            CREATE TABLE IF NOT EXISTS feed_items (
+                feed_id SERIAL,
+                source_id INT NOT NULL REFERENCES sources(source_id) ON DELETE CASCADE,
+                title TEXT NOT NULL,
+                content TEXT,
+                summary TEXT,
+                url TEXT NOT NULL,
+                published_at TIMESTAMP NOT NULL DEFAULT NOW(),
+                created_at TIMESTAMP DEFAULT NOW(),
+                PRIMARY KEY (feed_id, published_at)
+            ) PARTITION BY RANGE (published_at)
+            """;
+        try (var stmt = conn.createStatement()) {
+            stmt.execute(sql);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_feed_items_published ON feed_items (published_at DESC)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_feed_items_source_date ON feed_items (source_id, published_at DESC)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_feed_items_source_url ON feed_items (source_id, url)");
+            logger.debug("Feed items table verified/created");
+        }
+
+        FeedItemPartitions.ensureDefaultPartition(conn);
+        YearMonth current = YearMonth.now();
+        FeedItemPartitions.ensurePartitions(conn, current, current.plusMonths(
+            AppConfig.getInstance().getInt("retention.partitionsAhead", Constants.FEED_ITEM_PARTITIONS_AHEAD)));
+    }
+
+    /**
+     * Full-text search over feed item titles and bodies
+     */
+    private static void addFeedItemsSearch(Connection conn) throws SQLException {
+        try (var stmt = conn.createStatement()) {
+            // Full-text search: title weighted above body, kept in sync by Postgres
+            stmt.execute("""
+                ALTER TABLE feed_items ADD COLUMN IF NOT EXISTS search_vector tsvector
+                GENERATED ALWAYS AS (
+                    setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+                    setweight(to_tsvector('english', coalesce(content, '')), 'B')
+                ) STORED
+                """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_feed_items_search ON feed_items USING GIN (search_vector)");
+            logger.debug("Feed items search column verified/created");
+        }
+    }
+
+    /**
+     * Move article bodies out of feed_items so timeline scans only read short rows.
+     * search_vector depends on content, so it becomes a plain column that
+     * FeedDAO fills on insert.
+     */
+    private static void splitFeedItemBodies(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS feed_item_bodies (
+                    feed_id INT PRIMARY KEY,
+                    content TEXT
+                )
+                """);
+            stmt.execute("ALTER TABLE feed_items ADD COLUMN IF NOT EXISTS preview TEXT");
+
+            int moved = stmt.executeUpdate("""
+                INSERT INTO feed_item_bodies (feed_id, content)
+                SELECT feed_id, content FROM feed_items
+                ON CONFLICT (feed_id) DO NOTHING
+                """);
+            stmt.executeUpdate("UPDATE feed_items SET preview = left(trim(regexp_replace(regexp_replace(" +
+                "coalesce(nullif(summary, ''), content, ''), '<[^>]*>', ' ', 'g'), '\\s+', ' ', 'g')), " +
+                Constants.ARTICLE_PREVIEW_LENGTH + ")");
+
+            stmt.execute("ALTER TABLE feed_items ALTER COLUMN search_vector DROP EXPRESSION");
+            stmt.execute("ALTER TABLE feed_items DROP COLUMN content");
+            logger.info("Moved {} article bodies to feed_item_bodies", moved);
+        }
+    }
+
+    /**
+     * Store entry GUIDs and move dedup from TEXT url btrees to 64-bit hashes.
+     * Uniqueness of (source_id, guid_hash) is enforced by the unpartitioned
+     * feed_item_keys table. Existing rows have no GUID, so their normalized URL
+     * stands in for it (the same fallback FeedDAO uses); hashes are computed in
+     * Java so they match what new inserts produce.
+     */
+    private static void addFeedItemKeys(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE feed_items ADD COLUMN IF NOT EXISTS guid TEXT");
+            stmt.execute("ALTER TABLE feed_items ADD COLUMN IF NOT EXISTS guid_hash BIGINT");
+            stmt.execute("ALTER TABLE feed_items ADD COLUMN IF NOT EXISTS url_hash BIGINT");
+            // Keys outlive their items, so entries a feed still lists after they
+            // expire are not ingested again
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS feed_item_keys (
+                    source_id INT NOT NULL REFERENCES sources(source_id) ON DELETE CASCADE,
+                    guid_hash BIGINT NOT NULL,
+                    feed_id INT NOT NULL,
+                    PRIMARY KEY (source_id, guid_hash)
+                )
+                """);
+        }
+
+        int updated = 0;
+        try (Statement select = conn.createStatement();
+             PreparedStatement update = conn.prepareStatement(
+                 "UPDATE feed_items SET guid = ?, guid_hash = ?, url_hash = ? WHERE feed_id = ? AND published_at = ?");
+             PreparedStatement key = conn.prepareStatement(
+                 "INSERT INTO feed_item_keys (source_id, guid_hash, feed_id) VALUES (?, ?, ?) ON CONFLICT DO NOTHING")) {
+            select.setFetchSize(1000);
+            try (ResultSet rs = select.executeQuery(
+                    "SELECT feed_id, published_at, source_id, url FROM feed_items WHERE guid_hash IS NULL")) {
+                while (rs.next()) {
+                    String url = rs.getString("url");
+                    String guid = ItemKeys.effectiveGuid(null, url);
+                    long guidHash = ItemKeys.guidHash(guid);
+
+                    update.setString(1, guid);
+                    update.setLong(2, guidHash);
+                    update.setLong(3, ItemKeys.urlHash(url));
+                    update.setInt(4, rs.getInt("feed_id"));
+                    update.setTimestamp(5, rs.getTimestamp("published_at"));
+                    update.addBatch();
+
+                    key.setInt(1, rs.getInt("source_id"));
+                    key.setLong(2, guidHash);
+                    key.setInt(3, rs.getInt("feed_id"));
+                    key.addBatch();
+
+                    if (++updated % 500 == 0) {
+                        update.executeBatch();
+                        key.executeBatch();
+                    }
+                }
+            }
+            update.executeBatch();
+            key.executeBatch();
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE feed_items ALTER COLUMN guid_hash SET NOT NULL");
+            stmt.execute("ALTER TABLE feed_items ALTER COLUMN url_hash SET NOT NULL");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_feed_items_source_url_hash ON feed_items (source_id, url_hash)");
+            stmt.execute("DROP INDEX IF EXISTS idx_feed_items_source_url");
+        }
+        logger.info("Computed dedup keys for {} existing feed items", updated);
+    }
+
+    /**
+     * Sessions that let a client skip the password on startup. Only the
+     * SHA-256 of each token is stored, so a leaked table cannot be replayed.
+     */
+    private static void createUserSessionsTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS user_sessions (
+                    session_id SERIAL PRIMARY KEY,
+                    user_id INT NOT NULL REFERENCES users(user_id) ON DELETE CASCADE,
+                    token_hash BYTEA NOT NULL UNIQUE,
+                    created_at TIMESTAMP DEFAULT NOW(),
+                    last_used_at TIMESTAMP DEFAULT NOW(),
+                    expires_at TIMESTAMP NOT NULL,
+                    revoked_at TIMESTAMP NULL
+                )
+                """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_user_sessions_user ON user_sessions(user_id)");
+        }
+    }
+
+    /**
+     * Databases created before partitioning have a plain feed_items table. Move its
+     * rows into the partitioned layout once; runs inside the migration's transaction.
+     */
+    private static void convertLegacyFeedItemsTable(Connection conn) throws SQLException {
+        String relkindSql = """
+            SELECT c.relkind FROM pg_class c
+            JOIN pg_namespace n ON n.oid = c.relnamespace
+            WHERE n.nspname = current_schema() AND c.relname = 'feed_items'
+            """;
+        try (var stmt = conn.createStatement();
+             var rs = stmt.executeQuery(relkindSql)) {
+            if (!rs.next() || !"r".equals(rs.getString(1))) {
+                return;
+            }
+        }
+
+        logger.info("Converting feed_items to a monthly partitioned table...");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE read_status DROP CONSTRAINT IF EXISTS read_status_feed_id_fkey");
+            stmt.execute("ALTER TABLE user_bookmarks DROP CONSTRAINT IF EXISTS user_bookmarks_feed_id_fkey");
+
+            // Free up the names the partitioned table and its indexes will use
+            stmt.execute("ALTER TABLE feed_items RENAME TO feed_items_legacy");
+            stmt.execute("ALTER TABLE feed_items_legacy RENAME CONSTRAINT feed_items_pkey TO feed_items_legacy_pkey");
+            stmt.execute("ALTER SEQUENCE IF EXISTS feed_items_feed_id_seq RENAME TO feed_items_legacy_feed_id_seq");
+            stmt.execute("DROP INDEX IF EXISTS idx_feed_items_source, idx_feed_items_published, idx_feed_items_source_date");
+
+            YearMonth current = YearMonth.now();
+            YearMonth from = current.minusMonths(
+                AppConfig.getInstance().getInt("retention.months", Constants.FEED_ITEM_RETENTION_MONTHS));
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT MIN(COALESCE(published_at, created_at)) FROM feed_items_legacy")) {
+                if (rs.next() && rs.getTimestamp(1) != null) {
+                    YearMonth oldest = YearMonth.from(rs.getTimestamp(1).toLocalDateTime());
+                    if (oldest.isAfter(from)) {
+                        from = oldest;
+                    }
+                }
+            }
+
+            createFeedItemsTable(conn);
+            FeedItemPartitions.ensurePartitions(conn, from, current);
+
+            int moved = stmt.executeUpdate("""
+                INSERT INTO feed_items (feed_id, source_id, title, content, summary, url, published_at, created_at)
+                SELECT feed_id, source_id, title, content, summary, url,
+                       COALESCE(published_at, created_at, NOW()), created_at
+                FROM feed_items_legacy
+                """);
+            stmt.execute("SELECT setval(pg_get_serial_sequence('feed_items', 'feed_id'), " +
+                "COALESCE((SELECT MAX(feed_id) FROM feed_items), 0) + 1, false)");
+            stmt.execute("DROP TABLE feed_items_legacy");
+            logger.info("Moved {} feed items into partitioned feed_items", moved);
+        }
+    }
+
+    private static void createReadStatusTable(Connection conn) throws SQLException {
+        String sql = """
+            CREATE TABLE IF NOT EXISTS read_status (
+                status_id SERIAL PRIMARY KEY,
+                user_id INT NOT NULL REFERENCES users(user_id) ON DELETE CASCADE,
+                feed_id INT NOT NULL,
+                is_read BOOLEAN DEFAULT FALSE,
+                marked_read_at TIMESTAMP,
+                UNIQUE(user_id, feed_id)
+            )
+            """;
+        try (var stmt = conn.createStatement()) {
+            stmt.execute(sql);
+            logger.debug("Read status table verified/created");
+        }
+    }
+
+    private static void createUserBookmarksTable(Connection conn) throws SQLException {
+        String sql = """
+            CREATE TABLE IF NOT EXISTS user_bookmarks (
+                bookmark_id SERIAL PRIMARY KEY,
+                user_id INT NOT NULL REFERENCES users(user_id) ON DELETE CASCADE,
+                feed_id INT NOT NULL,
+                created_at TIMESTAMP DEFAULT NOW(),
+                UNIQUE(user_id, feed_id)
+            )
+            """;
+        try (var stmt = conn.createStatement()) {
+            stmt.execute(sql);
+            logger.debug("User bookmarks table verified/created");
+        }
+    }
+
+    private static void insertDefaultSources(Connection conn) throws SQLException {
+        // Check if sources already exist
+        String checkSql = "SELECT COUNT(*) FROM sources";
+        try (var stmt = conn.createStatement(); 
+             var rs = stmt.executeQuery(checkSql)) {
+            if (rs.next() && rs.getInt(1) > 0) {
+                logger.debug("Default sources already exist, skipping insertion");
+                return;
+            }
+        }
+
+        // Insert default RSS sources
+        String sql = """
+            INSERT INTO sources (name, url, description, category) VALUES
+            ('TechCrunch', 'https://techcrunch.com/feed/', 'Latest technology news and startup information', 'Tech'),
+            ('BBC News', 'http://feeds.bbci.co.uk/news/rss.xml', 'Latest breaking news and top stories', 'News'),
+            ('Reuters', 'https://feeds.reuters.com/reuters/topNews', 'International breaking news and headlines', 'News'),
+            ('The Verge', 'https://www.theverge.com/rss/index.xml', 'Technology, science, art, and culture', 'Tech'),
+            ('Ars Technica', 'http://feeds.arstechnica.com/arstechnica/index', 'In-depth technology analysis and reviews', 'Tech'),
+            ('NASA News', 'https://www.nasa.gov/rss/dyn/breaking_news.rss', 'Latest space and astronomy news', 'Science')
+            """;
+        
+        try (var stmt = conn.createStatement()) {
+            stmt.execute(sql);
+            logger.info("Default RSS sources inserted successfully");
+        }
+    }
+
+    private static void createDefaultUser(Connection conn) throws SQLException {
+        // Check if users already exist
+        String checkSql = "SELECT COUNT(*) FROM users";
+        try (var stmt = conn.createStatement(); 
+             var rs = stmt.executeQuery(checkSql)) {
+            if (rs.next() && rs.getInt(1) > 0) {
+                logger.debug("Users already exist, skipping default user creation");
+                return;
+            }
+        }
+
+        // Create default demo user (password: demo123)
+        // Using BCrypt hash for "demo123"
+        String hashedPassword = "$2a$10$N9qo8uLOickgx2ZMRZoMye7l6R2LAGhjDr/i3uFJaG/nNd5Kf4Z8q";
+        
+        String userSql = """
+            INSERT INTO users (username, email, password_hash, created_at)
+            VALUES ('demo', 'demo@feedhawk.com', ?, NOW())
+            """;
+        
+        try (var stmt = conn.prepareStatement(userSql)) {
+            stmt.setString(1, hashedPassword);
+            stmt.executeUpdate();
+            logger.info("Default demo user created (username: demo, password: demo123)");
+        }
+
+        // Create default "Home" list for the demo user
+        String listSql = """
+            INSERT INTO lists (user_id, name, is_default, created_at)
+            VALUES (1, 'Home', true, NOW())
+            """;
+        
+        try (var stmt = conn.createStatement()) {
+            stmt.execute(listSql);
+            logger.info("Default 'Home' list created for demo user");
+        }
+
+        // Subscribe demo user to some default sources
+        String subscriptionSql = """
+            INSERT INTO subscriptions (list_id, source_id, subscribed_at)
+            SELECT 1, source_id, NOW() FROM sources WHERE category IN ('News', 'Tech') LIMIT 4
+            """;
+        
+        try (var stmt = conn.createStatement()) {
+            stmt.execute(subscriptionSql);
+            logger.info("Default subscriptions created for demo user");
+        }
+    }
+
+    @FunctionalInterface
+    private interface MigrationStep {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final MigrationStep step;
+
+        Migration(int version, String description, MigrationStep step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package db;
+
+import db.models.Feed;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-process cache of sources by id and by URL, shared by all FeedDAO
+ * instances. Sources are stored and returned as copies, so callers can modify
+ * what they get without corrupting the cache. Bounded by LRU on id.
+ */
+final class SourceCache {
+
+    private final Map<String, Integer> idsByUrl = new HashMap<>();
+    private final LinkedHashMap<Integer, Feed> byId;
+
+    SourceCache(int maxSize) {
+        // Access-ordered for LRU eviction; both maps are guarded by this
+        this.byId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Feed> eldest) {
+                if (size() > maxSize) {
+                    idsByUrl.remove(eldest.getValue().getUrl());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    synchronized Optional<Feed> getById(int sourceId) {
+        Feed feed = byId.get(sourceId);
+        return feed == null ? Optional.empty() : Optional.of(new Feed(feed));
+    }
+
+    synchronized Optional<Feed> getByUrl(String url) {
+        Integer sourceId = idsByUrl.get(url);
+        return sourceId == null ? Optional.empty() : getById(sourceId);
+    }
+
+    synchronized void put(Feed feed) {
+        Feed previous = byId.put(feed.getId(), new Feed(feed));
+        if (previous != null && previous.getUrl() != null) {
+            idsByUrl.remove(previous.getUrl());
+        }
+        if (feed.getUrl() != null) {
+            idsByUrl.put(feed.getUrl(), feed.getId());
+        }
+    }
+
+    synchronized void invalidate(int sourceId) {
+        Feed previous = byId.remove(sourceId);
+        if (previous != null && previous.getUrl() != null) {
+            idsByUrl.remove(previous.getUrl());
+        }
+    }
+
+    synchronized void clear() {
+        byId.clear();
+        idsByUrl.clear();
+    }
+}
@@ -0,0 +1,246 @@
+package db;
+
+import db.models.Article;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.Constants;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * LRU cache of timeline pages per (user, list, cursor) in front of
+ * {@link FeedDAO#getTimeline}. Each page remembers which lists and sources it
+ * covers and which items it shows, so it is dropped exactly when new items
+ * arrive for one of those sources, the list's subscriptions change, or one of
+ * its items is marked read or saved.
+ */
+public class TimelineCache {
+    private static final Logger logger = LoggerFactory.getLogger(TimelineCache.class);
+    private static TimelineCache instance;
+
+    private final FeedDAO feedDAO = new FeedDAO();
+
+    // Access-ordered for LRU eviction; guarded by this
+    private final LinkedHashMap<Key, Entry> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > Constants.TIMELINE_CACHE_PAGES;
+        }
+    };
+
+    // Sources per list, per user, loaded once for the coverage of pages
+    private final Map<Integer, Map<Integer, Set<Integer>>> listSources = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation, so a page loaded concurrently is not cached stale
+    private long generation;
+
+    private TimelineCache() {
+    }
+
+    /**
+     * Singleton pattern for global access
+     */
+    public static synchronized TimelineCache getInstance() {
+        if (instance == null) {
+            instance = new TimelineCache();
+        }
+        return instance;
+    }
+
+    /**
+     * A cached page, without touching the database
+     */
+    public synchronized FeedDAO.TimelinePage getIfPresent(int userId, int listId, FeedDAO.TimelineCursor cursor, int limit) {
+        Entry entry = pages.get(new Key(userId, listId, cursor, limit));
+        return entry == null ? null : entry.copy();
+    }
+
+    /**
+     * A page from the cache, or from the database on a miss
+     */
+    public FeedDAO.TimelinePage get(int userId, int listId, FeedDAO.TimelineCursor cursor, int limit) {
+        Key key = new Key(userId, listId, cursor, limit);
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = pages.get(key);
+            if (entry != null) {
+                return entry.copy();
+            }
+            loadGeneration = generation;
+        }
+
+        Map<Integer, Set<Integer>> sources = listSources.computeIfAbsent(userId, feedDAO::getListSources);
+        FeedDAO.TimelinePage page = feedDAO.getTimeline(userId, listId, cursor, limit);
+        Entry entry = new Entry(page, userId, listId, coveredLists(listId, sources), coveredSources(listId, sources));
+
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                pages.put(key, entry);
+            }
+        }
+        return entry.copy();
+    }
+
+    /**
+     * The sources in each of a user's lists, loaded once like the coverage of pages
+     */
+    public Map<Integer, Set<Integer>> listSources(int userId) {
+        return Collections.unmodifiableMap(listSources.computeIfAbsent(userId, feedDAO::getListSources));
+    }
+
+    private static Set<Integer> coveredLists(int listId, Map<Integer, Set<Integer>> sources) {
+        if (listId == FeedDAO.TIMELINE_ALL || listId == FeedDAO.TIMELINE_SAVED) {
+            // Both only show items of subscribed sources, so any list change affects them
+            return sources.keySet();
+        }
+        return Set.of(listId);
+    }
+
+    private static Set<Integer> coveredSources(int listId, Map<Integer, Set<Integer>> sources) {
+        if (listId == FeedDAO.TIMELINE_SAVED) {
+            // New items are never bookmarked yet
+            return Set.of();
+        }
+        if (listId == FeedDAO.TIMELINE_ALL) {
+            Set<Integer> all = new HashSet<>();
+            sources.values().forEach(all::addAll);
+            return all;
+        }
+        return sources.getOrDefault(listId, Set.of());
+    }
+
+    /**
+     * New items were stored for these sources
+     */
+    public synchronized void sourcesUpdated(Collection<Integer> sourceIds) {
+        removeIf(entry -> !Collections.disjoint(entry.sources, sourceIds));
+    }
+
+    /**
+     * A user marked an item read or unread
+     */
+    public synchronized void readStateChanged(int userId, int feedId) {
+        removeIf(userId, entry -> entry.feedIds.contains(feedId));
+    }
+
+    /**
+     * A user saved or unsaved an item; their saved timeline changes as well
+     */
+    public synchronized void savedStateChanged(int userId, int feedId) {
+        removeIf(userId, entry -> entry.listId == FeedDAO.TIMELINE_SAVED || entry.feedIds.contains(feedId));
+    }
+
+    /**
+     * A list's subscriptions changed
+     */
+    public synchronized void listChanged(int listId) {
+        listSources.values().removeIf(lists -> lists.containsKey(listId));
+        removeIf(entry -> entry.lists.contains(listId));
+    }
+
+    /**
+     * A user created a list. Their timelines spanning all lists must learn about
+     * it, so that later subscriptions to it evict them.
+     */
+    public synchronized void listCreated(int userId) {
+        listSources.remove(userId);
+        removeIf(userId, entry -> entry.listId == FeedDAO.TIMELINE_ALL || entry.listId == FeedDAO.TIMELINE_SAVED);
+    }
+
+    public synchronized void invalidate(int userId) {
+        listSources.remove(userId);
+        removeIf(userId, entry -> true);
+    }
+
+    /**
+     * Drop every page, e.g. after retention removed items
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        listSources.clear();
+        pages.clear();
+    }
+
+    private void removeIf(int userId, Predicate<Entry> predicate) {
+        removeIf(entry -> entry.userId == userId && predicate.test(entry));
+    }
+
+    private void removeIf(Predicate<Entry> predicate) {
+        generation++;
+        int removed = 0;
+        for (Iterator<Entry> it = pages.values().iterator(); it.hasNext(); ) {
+            if (predicate.test(it.next())) {
+                it.remove();
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.debug("Evicted {} timeline pages", removed);
+        }
+    }
+
+    private static class Key {
+        private final int userId;
+        private final int listId;
+        private final FeedDAO.TimelineCursor cursor;
+        private final int limit;
+
+        Key(int userId, int listId, FeedDAO.TimelineCursor cursor, int limit) {
+            this.userId = userId;
+            this.listId = listId;
+            this.cursor = cursor;
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return userId == other.userId && listId == other.listId && limit == other.limit
+                && Objects.equals(cursor, other.cursor);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, listId, cursor, limit);
+        }
+    }
+
+    /**
+     * A cached page with what it depends on
+     */
+    private static class Entry {
+        private final int userId;
+        private final int listId;
+        private final FeedDAO.TimelinePage page;
+        private final Set<Integer> lists;
+        private final Set<Integer> sources;
+        private final Set<Integer> feedIds = new HashSet<>();
+
+        Entry(FeedDAO.TimelinePage page, int userId, int listId, Set<Integer> lists, Set<Integer> sources) {
+            this.userId = userId;
+            this.listId = listId;
+            this.page = page;
+            this.lists = lists;
+            this.sources = sources;
+            for (Article article : page.getArticles()) {
+                feedIds.add(article.getId());
+            }
+        }
+
+        FeedDAO.TimelinePage copy() {
+            return new FeedDAO.TimelinePage(new ArrayList<>(page.getArticles()), page.getNext());
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory unread counters per (user, list) and (user, source).
+ * A user's counters are built with two grouped queries the first time they are
+ * needed and then kept up to date incrementally as items are inserted and
+ * marked read, so the sidebar can show unread counts without counting
+ * feed_items for every list.
+ */
+public class UnreadCounters {
+    private static final Logger logger = LoggerFactory.getLogger(UnreadCounters.class);
+    private static UnreadCounters instance;
+
+    private static final String LOAD_LIST_SOURCES =
+        "SELECT l.list_id, sub.source_id FROM lists l " +
+        "LEFT JOIN subscriptions sub ON sub.list_id = l.list_id " +
+        "WHERE l.user_id = ?";
+
+    private static final String LOAD_SOURCE_UNREAD =
+        "SELECT f.source_id, COUNT(*) FROM feed_items f " +
+        "WHERE f.source_id IN (SELECT sub.source_id FROM subscriptions sub JOIN lists l ON sub.list_id = l.list_id WHERE l.user_id = ?) " +
+        "AND NOT EXISTS (SELECT 1 FROM read_status r WHERE r.user_id = ? AND r.feed_id = f.feed_id AND r.is_read) " +
+        "GROUP BY f.source_id";
+
+    private final Map<Integer, UserCounters> users = new ConcurrentHashMap<>();
+
+    private UnreadCounters() {
+    }
+
+    /**
+     * Singleton pattern for global access
+     */
+    public static synchronized UnreadCounters getInstance() {
+        if (instance == null) {
+            instance = new UnreadCounters();
+        }
+        return instance;
+    }
+
+    public boolean isLoaded(int userId) {
+        return users.containsKey(userId);
+    }
+
+    /**
+     * Rebuild a user's counters from the database
+     */
+    public void rebuild(int userId) {
+        UserCounters counters = new UserCounters();
+        try (Connection conn = DBConnection.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(LOAD_LIST_SOURCES)) {
+                stmt.setInt(1, userId);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    int listId = rs.getInt(1);
+                    int sourceId = rs.getInt(2);
+                    counters.listUnread.putIfAbsent(listId, 0);
+                    if (!rs.wasNull()) {
+                        counters.sourceLists.computeIfAbsent(sourceId, k -> new HashSet<>()).add(listId);
+                    }
+                }
+            }
+
+            try (PreparedStatement stmt = conn.prepareStatement(LOAD_SOURCE_UNREAD)) {
+                stmt.setInt(1, userId);
+                stmt.setInt(2, userId);
+                ResultSet rs = stmt.executeQuery();
+                while (rs.next()) {
+                    counters.adjust(rs.getInt(1), rs.getInt(2));
+                }
+            }
+
+            users.put(userId, counters);
+            logger.debug("Unread counters built for user {}: {} lists, {} sources",
+                userId, counters.listUnread.size(), counters.sourceLists.size());
+
+        } catch (SQLException e) {
+            logger.error("Error building unread counters for user: {}", userId, e);
+        }
+    }
+
+    public int getListUnread(int userId, int listId) {
+        UserCounters counters = users.get(userId);
+        if (counters == null) {
+            return 0;
+        }
+        synchronized (counters) {
+            return counters.listUnread.getOrDefault(listId, 0);
+        }
+    }
+
+    public int getSourceUnread(int userId, int sourceId) {
+        UserCounters counters = users.get(userId);
+        if (counters == null) {
+            return 0;
+        }
+        synchronized (counters) {
+            return counters.sourceUnread.getOrDefault(sourceId, 0);
+        }
+    }
+
+    /**
+     * A new item was stored for a source: it is unread for every subscriber
+     */
+    public void itemInserted(int sourceId) {
+        for (UserCounters counters : users.values()) {
+            synchronized (counters) {
+                if (counters.sourceLists.containsKey(sourceId)) {
+                    counters.adjust(sourceId, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Another client stored count items for one of a user's sources. Items
+     * stored by this process are counted by {@link #itemInserted} instead.
+     */
+    public void itemsStored(int userId, int sourceId, int count) {
+        UserCounters counters = users.get(userId);
+        if (counters == null || count == 0) {
+            return;
+        }
+        synchronized (counters) {
+            if (counters.sourceLists.containsKey(sourceId)) {
+                counters.adjust(sourceId, count);
+            }
+        }
+    }
+
+    /**
+     * A user's read state for an item of a source changed
+     * @param delta +1 when the item became unread, -1 when it became read
+     */
+    public void readStateChanged(int userId, int sourceId, int delta) {
+        UserCounters counters = users.get(userId);
+        if (counters == null || delta == 0) {
+            return;
+        }
+        synchronized (counters) {
+            if (counters.sourceLists.containsKey(sourceId)) {
+                counters.adjust(sourceId, delta);
+            }
+        }
+    }
+
+    /**
+     * A list was created for a user; it starts out empty
+     */
+    public void listCreated(int userId, int listId) {
+        UserCounters counters = users.get(userId);
+        if (counters != null) {
+            synchronized (counters) {
+                counters.listUnread.putIfAbsent(listId, 0);
+            }
+        }
+    }
+
+    /**
+     * A list's subscriptions changed; the owning user's counters are rebuilt on next use
+     */
+    public void listChanged(int listId) {
+        users.entrySet().removeIf(entry -> {
+            synchronized (entry.getValue()) {
+                return entry.getValue().listUnread.containsKey(listId);
+            }
+        });
+    }
+
+    public void invalidate(int userId) {
+        users.remove(userId);
+    }
+
+    /**
+     * Drop all counters, e.g. after retention removed items
+     */
+    public void invalidateAll() {
+        users.clear();
+    }
+
+    /**
+     * Counters of one user. Guarded by its own monitor.
+     */
+    private static class UserCounters {
+        private final Map<Integer, Integer> sourceUnread = new HashMap<>();
+        private final Map<Integer, Integer> listUnread = new HashMap<>();
+        private final Map<Integer, Set<Integer>> sourceLists = new HashMap<>();
+
+        private void adjust(int sourceId, int delta) {
+            sourceUnread.put(sourceId, Math.max(0, sourceUnread.getOrDefault(sourceId, 0) + delta));
+            for (int listId : sourceLists.getOrDefault(sourceId, Set.of())) {
+                listUnread.put(listId, Math.max(0, listUnread.getOrDefault(listId, 0) + delta));
+            }
+        }
+    }
+}
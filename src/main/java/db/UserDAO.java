@@ -14,8 +14,21 @@ public class UserDAO {
     private static final Logger logger = LoggerFactory.getLogger(UserDAO.class);
 
     // SQL Queries
+    // One round trip: the insert, or which unique constraint stopped it. The
+    // EXISTS subqueries see the table as it was before the insert.
     private static final String INSERT_USER =
-        "INSERT INTO users (username, email, password_hash, created_at) VALUES (?, ?, ?, ?) RETURNING user_id";
+        "WITH inserted AS (" +
+        "  INSERT INTO users (username, email, password_hash, created_at) VALUES (?, ?, ?, ?)" +
+        "  ON CONFLICT DO NOTHING RETURNING user_id" +
+        ") SELECT (SELECT user_id FROM inserted) AS user_id, " +
+        "EXISTS (SELECT 1 FROM users WHERE username = ?) AS username_taken, " +
+        "EXISTS (SELECT 1 FROM users WHERE email = ?) AS email_taken";
+
+    private static final String USERNAME_EXISTS =
+        "SELECT EXISTS (SELECT 1 FROM users WHERE username = ?)";
+
+    private static final String EMAIL_EXISTS =
+        "SELECT EXISTS (SELECT 1 FROM users WHERE email = ?)";
 
     private static final String FIND_BY_ID =
         "SELECT user_id, username, email, password_hash, created_at, last_login FROM users WHERE user_id = ?";
@@ -32,10 +45,53 @@ public class UserDAO {
     private static final String UPDATE_USER =
         "UPDATE users SET username = ?, email = ? WHERE user_id = ?";
 
+    private static final String UPDATE_PASSWORD_HASH =
+        "UPDATE users SET password_hash = ? WHERE user_id = ?";
+
+    private static final String REPLACE_PASSWORD_HASH =
+        "UPDATE users SET password_hash = ? WHERE user_id = ? AND password_hash = ?";
+
+    private static final String INSERT_SESSION =
+        "INSERT INTO user_sessions (user_id, token_hash, expires_at) VALUES (?, ?, NOW() + make_interval(days => ?))";
+
+    // Dead sessions of a user are dropped whenever it gets a new one
+    private static final String DELETE_DEAD_SESSIONS =
+        "DELETE FROM user_sessions WHERE user_id = ? AND (expires_at < NOW() OR revoked_at IS NOT NULL)";
+
+    private static final String FIND_BY_SESSION =
+        "WITH session AS (" +
+        "  UPDATE user_sessions SET last_used_at = NOW()" +
+        "  WHERE token_hash = ? AND revoked_at IS NULL AND expires_at > NOW()" +
+        "  RETURNING user_id" +
+        ") SELECT u.user_id, u.username, u.email, u.password_hash, u.created_at, u.last_login " +
+        "FROM users u JOIN session s ON s.user_id = u.user_id";
+
+    private static final String REVOKE_SESSION =
+        "UPDATE user_sessions SET revoked_at = NOW() WHERE token_hash = ? AND revoked_at IS NULL";
+
+    private static final String REVOKE_USER_SESSIONS =
+        "UPDATE user_sessions SET revoked_at = NOW() WHERE user_id = ? AND revoked_at IS NULL";
+
     private static final String DELETE_USER =
         "DELETE FROM users WHERE user_id = ?";
 
-    public Optional<User> createUser(User user) {
+    /**
+     * Outcome of {@link #createUser}
+     */
+    public enum CreateStatus {
+        CREATED,
+        USERNAME_TAKEN,
+        EMAIL_TAKEN,
+        // Lost a race with a concurrent signup for the same username or email
+        CONFLICT,
+        FAILED
+    }
+
+    /**
+     * Insert a user, relying on the unique constraints rather than checking
+     * first. On success the user's id is set.
+     */
+    public CreateStatus createUser(User user) {
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(INSERT_USER)) {
 
@@ -43,18 +99,30 @@ public class UserDAO {
             stmt.setString(2, user.getEmail());
             stmt.setString(3, user.getPasswordHash());
             stmt.setTimestamp(4, Timestamp.valueOf(user.getCreatedAt()));
+            stmt.setString(5, user.getUsername());
+            stmt.setString(6, user.getEmail());
 
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
-                user.setId(rs.getInt("user_id"));
-                logger.info("User created successfully: {}", user.getUsername());
-                return Optional.of(user);
+                int userId = rs.getInt("user_id");
+                if (!rs.wasNull()) {
+                    user.setId(userId);
+                    logger.info("User created successfully: {}", user.getUsername());
+                    return CreateStatus.CREATED;
+                }
+                if (rs.getBoolean("username_taken")) {
+                    return CreateStatus.USERNAME_TAKEN;
+                }
+                if (rs.getBoolean("email_taken")) {
+                    return CreateStatus.EMAIL_TAKEN;
+                }
+                return CreateStatus.CONFLICT;
             }
 
         } catch (SQLException e) {
             logger.error("Error creating user: {}", user.getUsername(), e);
         }
-        return Optional.empty();
+        return CreateStatus.FAILED;
     }
 
     public Optional<User> findById(int userId) {
@@ -144,6 +212,113 @@ public class UserDAO {
         return false;
     }
 
+    public boolean updatePasswordHash(int userId, String passwordHash) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(UPDATE_PASSWORD_HASH)) {
+
+            stmt.setString(1, passwordHash);
+            stmt.setInt(2, userId);
+
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            logger.error("Error updating password hash for user: {}", userId, e);
+        }
+        return false;
+    }
+
+    /**
+     * Swap in a new hash only if the stored one is still expectedHash, so a
+     * late rehash cannot overwrite a password changed in the meantime
+     */
+    public boolean replacePasswordHash(int userId, String expectedHash, String passwordHash) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(REPLACE_PASSWORD_HASH)) {
+
+            stmt.setString(1, passwordHash);
+            stmt.setInt(2, userId);
+            stmt.setString(3, expectedHash);
+
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            logger.error("Error replacing password hash for user: {}", userId, e);
+        }
+        return false;
+    }
+
+    /**
+     * Store a new session for a user, by the hash of its token. Expiry is
+     * computed by the database, so client clocks do not matter.
+     */
+    public boolean createSession(int userId, byte[] tokenHash, int ttlDays) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement cleanup = conn.prepareStatement(DELETE_DEAD_SESSIONS);
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SESSION)) {
+
+            cleanup.setInt(1, userId);
+            cleanup.executeUpdate();
+
+            stmt.setInt(1, userId);
+            stmt.setBytes(2, tokenHash);
+            stmt.setInt(3, ttlDays);
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            logger.error("Error creating session for user: {}", userId, e);
+        }
+        return false;
+    }
+
+    /**
+     * The user of a live (unexpired, unrevoked) session, marking it used
+     */
+    public Optional<User> findBySession(byte[] tokenHash) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(FIND_BY_SESSION)) {
+
+            stmt.setBytes(1, tokenHash);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return Optional.of(mapResultSetToUser(rs));
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error finding user by session", e);
+        }
+        return Optional.empty();
+    }
+
+    public boolean revokeSession(byte[] tokenHash) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(REVOKE_SESSION)) {
+
+            stmt.setBytes(1, tokenHash);
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            logger.error("Error revoking session", e);
+        }
+        return false;
+    }
+
+    /**
+     * Revoke every session of a user, e.g. after a password change
+     */
+    public int revokeAllSessions(int userId) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(REVOKE_USER_SESSIONS)) {
+
+            stmt.setInt(1, userId);
+            return stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.error("Error revoking sessions for user: {}", userId, e);
+        }
+        return -1;
+    }
+
     public boolean deleteUser(int userId) {
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(DELETE_USER)) {
@@ -162,12 +337,30 @@ public class UserDAO {
         return false;
     }
 
+    /**
+     * Index-only probe for live form validation; the insert is what enforces
+     * uniqueness, so a slightly stale replica is fine here
+     */
     public boolean usernameExists(String username) {
-        return findByUsername(username).isPresent();
+        return exists(USERNAME_EXISTS, username);
     }
 
     public boolean emailExists(String email) {
-        return findByEmail(email).isPresent();
+        return exists(EMAIL_EXISTS, email);
+    }
+
+    private boolean exists(String sql, String value) {
+        try (Connection conn = DBConnection.getReadConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            stmt.setString(1, value);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() && rs.getBoolean(1);
+
+        } catch (SQLException e) {
+            logger.error("Error checking whether {} exists", value, e);
+        }
+        return false;
     }
 
     private User mapResultSetToUser(ResultSet rs) throws SQLException {
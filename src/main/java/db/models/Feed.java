@@ -29,6 +29,24 @@ public class Feed {
         this.refreshIntervalMinutes = 60; // Default 1 hour
     }
 
+    /**
+     * Copy constructor, for handing out cached feeds
+     */
+    public Feed(Feed other) {
+        this.id = other.id;
+        this.userId = other.userId;
+        this.title = other.title;
+        this.url = other.url;
+        this.description = other.description;
+        this.category = other.category;
+        this.siteUrl = other.siteUrl;
+        this.lastFetched = other.lastFetched;
+        this.createdAt = other.createdAt;
+        this.isActive = other.isActive;
+        this.refreshIntervalMinutes = other.refreshIntervalMinutes;
+        this.iconUrl = other.iconUrl;
+    }
+
     // Getters and Setters
     public int getId() {
         return id;
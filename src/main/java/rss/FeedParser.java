@@ -17,6 +17,7 @@ import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 import java.util.Optional;
 
 public class FeedParser {
@@ -100,6 +101,11 @@ public class FeedParser {
             }
         }
 
+        if (savedCount > 0) {
+            // Push the new items to running clients
+            feedDAO.notifyNewItems(Set.of(sourceId));
+        }
+
         logger.info("Saved {} new articles from feed: {}", savedCount, feedUrl);
         return savedCount;
     }
@@ -166,28 +172,34 @@ public class FeedParser {
     }
 
     /**
-     * Validate if URL is a valid RSS feed
+     * Validate if URL is a valid RSS feed. Only sniffs the start of the document
+     * (see {@link FeedValidator}) instead of parsing all of it.
      * @param feedUrl The URL to validate
      * @return true if valid RSS feed
      */
     public boolean isValidRSSFeed(String feedUrl) {
-        try {
-            ParseResult result = parseFeed(feedUrl);
-            return result.isSuccess();
-        } catch (Exception e) {
-            logger.debug("Invalid RSS feed: {}", feedUrl);
-            return false;
+        FeedValidator.Verdict verdict = FeedValidator.validate(feedUrl);
+        if (!verdict.isValid()) {
+            logger.debug("Invalid RSS feed: {} ({})", feedUrl, verdict.getMessage());
         }
+        return verdict.isValid();
     }
 
     /**
      * Get feed metadata without parsing all articles
      * @param feedUrl The RSS feed URL
-     * @return Feed metadata or null if failed
+     * @return Feed metadata (title and description) or null if not a feed
      */
     public Feed getFeedMetadata(String feedUrl) {
-        ParseResult result = parseFeed(feedUrl);
-        return result.isSuccess() ? result.getFeed() : null;
+        FeedValidator.Verdict verdict = FeedValidator.validate(feedUrl);
+        if (!verdict.isValid()) {
+            return null;
+        }
+        Feed feed = new Feed();
+        feed.setTitle(verdict.getTitle());
+        feed.setUrl(verdict.getFeedUrl());
+        feed.setDescription(verdict.getDescription());
+        return feed;
     }
 
     /**
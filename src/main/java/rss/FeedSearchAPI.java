@@ -5,19 +5,37 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ParseException;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import utils.Constants;
+import utils.ExpiringCache;
 
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service for searching RSS feeds using the feedsearch.dev API
@@ -33,13 +51,40 @@ public class FeedSearchAPI {
     
     private static final String API_BASE_URL = "https://feedsearch.dev/api/v1";
     private static final String SEARCH_ENDPOINT = API_BASE_URL + "/search";
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    
+    // Shared by all instances: answers (and failures) per site or query
+    private static final ExpiringCache<String, List<FeedResult>> lookupCache = new ExpiringCache<>(
+        "feedsearch.dev", Duration.ofMinutes(Constants.SEARCH_CACHE_TTL_MINUTES),
+        Duration.ofSeconds(Constants.SEARCH_FAILURE_TTL_SECONDS), Constants.SEARCH_CACHE_SIZE);
+    
+    // Keyword searches query several sites concurrently
+    private static final int SITE_SEARCH_THREADS = 6;
+    private static final int KEYWORD_RESULT_LIMIT = 20;
+    private static final ExecutorService SITE_SEARCH_EXECUTOR = Executors.newFixedThreadPool(SITE_SEARCH_THREADS, r -> {
+        Thread thread = new Thread(r, "feedsearch-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
     
     private final Gson gson;
     private final CloseableHttpClient httpClient;
     
     public FeedSearchAPI() {
         this.gson = new Gson();
-        this.httpClient = HttpClients.createDefault();
+        // Every request goes to the same host, so allow one connection per concurrent site search
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnPerRoute(SITE_SEARCH_THREADS)
+                .setMaxConnTotal(SITE_SEARCH_THREADS * 2)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.ofMilliseconds(Constants.CONNECTION_TIMEOUT_MS))
+                    .build())
+                .build())
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setResponseTimeout(Timeout.ofMilliseconds(Constants.FEED_SEARCH_TIMEOUT_MS))
+                .build())
+            .build();
     }
     
     /**
@@ -93,43 +138,75 @@ public class FeedSearchAPI {
      * @return List of feed results
      */
     public List<FeedResult> searchFeeds(String query) {
-        List<FeedResult> results = new ArrayList<>();
-        
+        return searchFeeds(query, SearchCancellation.NONE);
+    }
+    
+    /**
+     * Search for RSS feeds by query or URL, aborting the HTTP request if the search is cancelled
+     */
+    public List<FeedResult> searchFeeds(String query, SearchCancellation cancellation) {
         if (query == null || query.trim().isEmpty()) {
             logger.warn("Empty search query provided");
-            return results;
+            return new ArrayList<>();
         }
         
+        String trimmed = query.trim();
         try {
-            String encodedQuery = URLEncoder.encode(query.trim(), StandardCharsets.UTF_8);
-            String apiUrl = SEARCH_ENDPOINT + "?url=" + encodedQuery;
-            
-            logger.info("Searching feedsearch.dev for: {}", query);
-            logger.debug("API URL: {}", apiUrl);
-            
-            HttpGet request = new HttpGet(apiUrl);
-            request.setHeader("User-Agent", Constants.USER_AGENT);
-            request.setHeader("Accept", "application/json");
-            
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
-                int statusCode = response.getCode();
-                String responseBody = EntityUtils.toString(response.getEntity());
-                
-                if (statusCode == 200) {
-                    results = parseSearchResults(responseBody);
-                    logger.info("Found {} feeds from feedsearch.dev", results.size());
-                } else {
-                    logger.warn("API returned status code {}: {}", statusCode, responseBody);
+            while (!cancellation.isCancelled()) {
+                try {
+                    return new ArrayList<>(lookupCache.get(trimmed, () -> lookup(trimmed, cancellation)));
+                } catch (CancellationException e) {
+                    // We joined a lookup that another search cancelled; try again unless we were cancelled too
+                    logger.debug("Shared lookup for {} was cancelled", trimmed);
                 }
             }
-            
         } catch (IOException e) {
-            logger.error("Error calling feedsearch.dev API", e);
+            logger.error("Error calling feedsearch.dev API for {}: {}", trimmed, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             logger.error("Unexpected error during feed search", e);
         }
+        return new ArrayList<>();
+    }
+    
+    /**
+     * One uncached feedsearch.dev request. Transport errors and non-200 responses
+     * throw, so the cache remembers them as failures.
+     */
+    private List<FeedResult> lookup(String query, SearchCancellation cancellation) throws IOException {
+        String encodedQuery = URLEncoder.encode(query, StandardCharsets.UTF_8);
+        String apiUrl = SEARCH_ENDPOINT + "?url=" + encodedQuery;
         
-        return results;
+        logger.info("Searching feedsearch.dev for: {}", query);
+        logger.debug("API URL: {}", apiUrl);
+        
+        HttpGet request = new HttpGet(apiUrl);
+        request.setHeader("User-Agent", Constants.USER_AGENT);
+        request.setHeader("Accept", "application/json");
+        
+        SearchCancellation.Registration abort = cancellation.onCancel(request::cancel);
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            int statusCode = response.getCode();
+            String responseBody = EntityUtils.toString(response.getEntity());
+            
+            if (statusCode != 200) {
+                throw new IOException("feedsearch.dev returned status " + statusCode + ": " + responseBody);
+            }
+            List<FeedResult> results = parseSearchResults(responseBody);
+            logger.info("Found {} feeds from feedsearch.dev", results.size());
+            return List.copyOf(results);
+        } catch (ParseException e) {
+            throw new IOException("Could not read feedsearch.dev response", e);
+        } catch (IOException e) {
+            // Not a failure of the API, so it must not be cached as one
+            if (cancellation.isCancelled()) {
+                throw new CancellationException("feedsearch.dev lookup cancelled: " + query);
+            }
+            throw e;
+        } finally {
+            abort.close();
+        }
     }
     
     /**
@@ -225,7 +302,11 @@ public class FeedSearchAPI {
      * @return List of feeds found on the website
      */
     public List<FeedResult> searchByWebsite(String websiteUrl) {
-        return searchFeeds(websiteUrl);
+        return searchFeeds(websiteUrl, SearchCancellation.NONE);
+    }
+    
+    public List<FeedResult> searchByWebsite(String websiteUrl, SearchCancellation cancellation) {
+        return searchFeeds(websiteUrl, cancellation);
     }
     
     /**
@@ -237,28 +318,68 @@ public class FeedSearchAPI {
      * @return List of feeds matching the keyword
      */
     public List<FeedResult> searchByKeyword(String keyword) {
+        return searchByKeyword(keyword, SearchCancellation.NONE);
+    }
+    
+    public List<FeedResult> searchByKeyword(String keyword, SearchCancellation cancellation) {
         // feedsearch.dev is primarily URL-based, so we'll search common
-        // sites that might have feeds related to the keyword
-        List<FeedResult> allResults = new ArrayList<>();
-        
-        // For topics like "ai", "tech", etc., we can search known sites
+        // sites that might have feeds related to the keyword, all at once
         List<String> sitesToSearch = getSitesForKeyword(keyword);
-        
+        // Each site's answer as it arrives; cancelling the search adds the marker
+        // instead of interrupting this (pooled) thread
+        BlockingQueue<List<FeedResult>> answers = new LinkedBlockingQueue<>();
+        List<FeedResult> cancelledMarker = new ArrayList<>();
+        List<CompletableFuture<List<FeedResult>>> pending = new ArrayList<>();
         for (String site : sitesToSearch) {
-            try {
-                List<FeedResult> siteResults = searchFeeds(site);
-                allResults.addAll(siteResults);
-                
-                // Limit results to avoid overwhelming the user
-                if (allResults.size() >= 20) {
+            CompletableFuture<List<FeedResult>> search =
+                CompletableFuture.supplyAsync(() -> searchFeeds(site, cancellation), SITE_SEARCH_EXECUTOR);
+            search.whenComplete((results, error) -> {
+                if (error != null && !(error instanceof CancellationException)) {
+                    logger.debug("Error searching {} for '{}': {}", site, keyword, error.getMessage());
+                }
+                answers.add(results != null ? results : List.of());
+            });
+            pending.add(search);
+        }
+        
+        // Merge by score as results arrive, until every site answered, the
+        // deadline passed, the search was cancelled, or we have enough
+        List<FeedResult> allResults = new ArrayList<>();
+        Set<String> seenUrls = new HashSet<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Constants.FEED_SEARCH_TIMEOUT_MS);
+        SearchCancellation.Registration wakeUp = cancellation.onCancel(() -> answers.add(cancelledMarker));
+        try {
+            for (int received = 0; received < pending.size() && allResults.size() < KEYWORD_RESULT_LIMIT; received++) {
+                List<FeedResult> answer = answers.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (answer == null) {
+                    logger.debug("Keyword search for '{}' timed out with {} of {} sites answered",
+                        keyword, received, pending.size());
                     break;
                 }
-            } catch (Exception e) {
-                logger.debug("Error searching site {}: {}", site, e.getMessage());
+                if (answer == cancelledMarker) {
+                    break;
+                }
+                for (FeedResult result : answer) {
+                    if (seenUrls.add(result.getUrl())) {
+                        allResults.add(result);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            wakeUp.close();
+            // Sites still queued are skipped; running lookups finish and fill the cache.
+            // Interrupting them would get the interrupt cached as a failure of the site.
+            for (CompletableFuture<List<FeedResult>> search : pending) {
+                search.cancel(false);
             }
         }
         
-        return allResults;
+        allResults.sort(Comparator.comparingInt(FeedResult::getScore).reversed());
+        return allResults.size() > KEYWORD_RESULT_LIMIT
+            ? new ArrayList<>(allResults.subList(0, KEYWORD_RESULT_LIMIT))
+            : allResults;
     }
     
     /**
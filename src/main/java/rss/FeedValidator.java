@@ -0,0 +1,311 @@
+package rss;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.Constants;
+import utils.ExpiringCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cheap check whether URLs point at feeds. Only the first few KB of each
+ * response are read, which is enough to tell RSS, RDF and Atom apart and to
+ * pick up the feed's title, instead of downloading and parsing
+ * the whole document. Batches are probed concurrently and verdicts are cached.
+ */
+public class FeedValidator {
+    private static final Logger logger = LoggerFactory.getLogger(FeedValidator.class);
+
+    // Enough for the XML prolog and the channel's title/description in practice
+    private static final int PROBE_BYTES = 16 * 1024;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final ExecutorService PROBE_EXECUTOR = Executors.newFixedThreadPool(Constants.FEED_VALIDATION_THREADS, r -> {
+        Thread thread = new Thread(r, "feed-validate-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Verdicts per URL; network errors are only remembered briefly
+    private static final ExpiringCache<String, Verdict> verdictCache = new ExpiringCache<>(
+        "feed validation", Duration.ofHours(Constants.FEED_VALIDATION_TTL_HOURS),
+        Duration.ofSeconds(Constants.SEARCH_FAILURE_TTL_SECONDS), Constants.FEED_VALIDATION_CACHE_SIZE);
+
+    private static final Pattern XML_ENCODING = Pattern.compile("<\\?xml[^>]*encoding\\s*=\\s*[\"']([A-Za-z0-9._-]+)[\"']");
+    private static final Pattern XML_ROOT = Pattern.compile("<([A-Za-z_][\\w.-]*:)?([A-Za-z_][\\w.-]*)[\\s>/]");
+    private static final Pattern XML_COMMENT_OR_DECLARATION = Pattern.compile("<\\?.*?\\?>|<!--.*?-->|<!DOCTYPE[^>]*>", Pattern.DOTALL);
+    private static final Pattern FIRST_ITEM = Pattern.compile("<(?:\\w+:)?(?:item|entry)[\\s>]");
+    private static final Pattern JSON_FEED_VERSION = Pattern.compile("\"version\"\\s*:\\s*\"https?://jsonfeed\\.org/version/");
+    private static final Pattern CDATA = Pattern.compile("<!\\[CDATA\\[(.*?)]]>", Pattern.DOTALL);
+    private static final Pattern TAGS = Pattern.compile("<[^>]*>");
+
+    /**
+     * What a probe found out about a URL
+     */
+    public static class Verdict {
+        private final String url;
+        private final String feedUrl;
+        private final boolean valid;
+        private final String format;
+        private final String title;
+        private final String description;
+        private final String message;
+
+        private Verdict(String url, String feedUrl, boolean valid, String format, String title, String description,
+                        String message) {
+            this.url = url;
+            this.feedUrl = feedUrl;
+            this.valid = valid;
+            this.format = format;
+            this.title = title;
+            this.description = description;
+            this.message = message;
+        }
+
+        static Verdict feed(String url, String format, String title, String description) {
+            return new Verdict(url, url, true, format, title, description, null);
+        }
+
+        static Verdict invalid(String url, String message) {
+            return new Verdict(url, url, false, null, null, null, message);
+        }
+
+        /**
+         * The same verdict for the URL that redirected to this one
+         */
+        Verdict redirectedFrom(String originalUrl) {
+            return new Verdict(originalUrl, feedUrl, valid, format, title, description, message);
+        }
+
+        /** The URL that was checked */
+        public String getUrl() { return url; }
+        /** Where the feed actually is, after redirects; what should be subscribed to */
+        public String getFeedUrl() { return feedUrl; }
+        public boolean isValid() { return valid; }
+        /** "RSS", "RDF" or "Atom"; null if not a feed */
+        public String getFormat() { return format; }
+        /** The feed's own title, or null if it has none in the first few KB */
+        public String getTitle() { return title; }
+        public String getDescription() { return description; }
+        /** Why the URL is not a feed */
+        public String getMessage() { return message; }
+    }
+
+    private FeedValidator() {
+    }
+
+    public static Verdict validate(String url) {
+        return validate(url, SearchCancellation.NONE);
+    }
+
+    /**
+     * Probe one URL, or answer from the cache
+     */
+    public static Verdict validate(String url, SearchCancellation cancellation) {
+        try {
+            while (!cancellation.isCancelled()) {
+                try {
+                    return verdictCache.get(url, () -> probe(url, cancellation));
+                } catch (CancellationException e) {
+                    // We joined a probe that another search cancelled; try again unless we were cancelled too
+                    logger.debug("Shared probe for {} was cancelled", url);
+                }
+            }
+        } catch (IOException e) {
+            return Verdict.invalid(url, e.getMessage());
+        } catch (Exception e) {
+            logger.warn("Unexpected error validating feed {}", url, e);
+            return Verdict.invalid(url, e.getMessage());
+        }
+        return Verdict.invalid(url, "Cancelled");
+    }
+
+    /**
+     * Probe all URLs concurrently. The verdicts come back in the order of urls,
+     * once every probe has finished (each is bounded by its timeouts).
+     */
+    public static Map<String, Verdict> validateAll(Collection<String> urls, SearchCancellation cancellation) {
+        Map<String, CompletableFuture<Verdict>> probes = new LinkedHashMap<>();
+        for (String url : new LinkedHashSet<>(urls)) {
+            probes.put(url, CompletableFuture.supplyAsync(() -> validate(url, cancellation), PROBE_EXECUTOR));
+        }
+
+        Map<String, Verdict> verdicts = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<Verdict>> probe : probes.entrySet()) {
+            try {
+                verdicts.put(probe.getKey(), probe.getValue().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                probes.values().forEach(future -> future.cancel(true));
+                break;
+            } catch (ExecutionException e) {
+                verdicts.put(probe.getKey(), Verdict.invalid(probe.getKey(), String.valueOf(e.getCause())));
+            }
+        }
+        return verdicts;
+    }
+
+    /**
+     * Just the URLs that are feeds, in the order given
+     */
+    public static List<Verdict> validFeeds(Collection<String> urls, SearchCancellation cancellation) {
+        List<Verdict> feeds = new ArrayList<>();
+        for (Verdict verdict : validateAll(urls, cancellation).values()) {
+            if (verdict.isValid()) {
+                feeds.add(verdict);
+            }
+        }
+        return feeds;
+    }
+
+    /**
+     * Fetch the start of url and sniff it. Redirects are followed by hand, because
+     * HttpURLConnection does not follow one that changes protocol (http -> https).
+     * Only the final response decides the verdict; a redirect that goes nowhere
+     * is an IOException, so it is not cached for long.
+     */
+    private static Verdict probe(String url, SearchCancellation cancellation) throws IOException {
+        URL target = new URL(url);
+        for (int redirects = 0; ; redirects++) {
+            HttpURLConnection conn = (HttpURLConnection) target.openConnection();
+            conn.setInstanceFollowRedirects(false);
+            conn.setRequestProperty("User-Agent", Constants.USER_AGENT);
+            conn.setRequestProperty("Accept",
+                "application/rss+xml, application/atom+xml, application/xml;q=0.9, text/xml;q=0.9, */*;q=0.8");
+            conn.setConnectTimeout(5000);
+            conn.setReadTimeout(5000);
+
+            SearchCancellation.Registration abort = cancellation.onCancel(conn::disconnect);
+            try {
+                int status = conn.getResponseCode();
+                if (status >= 300 && status < 400) {
+                    String location = conn.getHeaderField("Location");
+                    if (location == null || redirects >= Constants.FEED_VALIDATION_MAX_REDIRECTS) {
+                        throw new IOException("HTTP " + status
+                            + (location == null ? " without Location" : " after too many redirects"));
+                    }
+                    target = new URL(target, location);
+                    continue;
+                }
+                if (status >= 500 || status == 429) {
+                    // Probably temporary: only cached for the short failure TTL
+                    throw new IOException("HTTP " + status);
+                }
+                if (status < 200 || status >= 300) {
+                    return Verdict.invalid(url, "HTTP " + status);
+                }
+
+                byte[] head;
+                try (InputStream in = conn.getInputStream()) {
+                    head = in.readNBytes(PROBE_BYTES);
+                }
+                return sniff(target.toString(), head, conn.getContentType()).redirectedFrom(url);
+            } catch (IOException e) {
+                // Not a failure of the site, so it must not be cached as one
+                if (cancellation.isCancelled()) {
+                    throw new CancellationException("Feed probe cancelled: " + url);
+                }
+                throw e;
+            } finally {
+                abort.close();
+                // Don't download the rest of the document
+                conn.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Decide from the start of a document whether it is a feed that
+     * {@link FeedParser} can read
+     */
+    static Verdict sniff(String url, byte[] head, String contentType) {
+        String text = decode(head, contentType).stripLeading();
+
+        if (text.startsWith("{")) {
+            // FeedParser reads feeds with ROME, which has no JSON Feed support
+            return Verdict.invalid(url, JSON_FEED_VERSION.matcher(text).find()
+                ? "JSON Feed not supported" : "JSON but not a JSON Feed");
+        }
+        if (!text.startsWith("<")) {
+            return Verdict.invalid(url, "Not XML or JSON");
+        }
+
+        String xml = XML_COMMENT_OR_DECLARATION.matcher(text).replaceAll("");
+        Matcher root = XML_ROOT.matcher(xml);
+        if (!root.find()) {
+            return Verdict.invalid(url, "No root element");
+        }
+        String format;
+        switch (root.group(2).toLowerCase()) {
+            case "rss": format = "RSS"; break;
+            case "rdf": format = "RDF"; break;
+            case "feed": format = "Atom"; break;
+            default: return Verdict.invalid(url, "Root element is <" + root.group(2) + ">");
+        }
+
+        // Only look at the channel itself, not its items
+        Matcher firstItem = FIRST_ITEM.matcher(xml);
+        String channel = firstItem.find() ? xml.substring(0, firstItem.start()) : xml;
+        String description = xmlElement(channel, format.equals("Atom") ? "subtitle" : "description");
+        return Verdict.feed(url, format, xmlElement(channel, "title"), description);
+    }
+
+    private static String decode(byte[] head, String contentType) {
+        Charset charset = null;
+        if (contentType != null) {
+            int at = contentType.toLowerCase().indexOf("charset=");
+            if (at >= 0) {
+                charset = charsetOrNull(contentType.substring(at + 8).split(";")[0].replace("\"", "").trim());
+            }
+        }
+        if (charset == null) {
+            // The XML declaration is ASCII in every encoding we care about
+            Matcher encoding = XML_ENCODING.matcher(new String(head, 0, Math.min(head.length, 200), StandardCharsets.ISO_8859_1));
+            charset = encoding.find() ? charsetOrNull(encoding.group(1)) : null;
+        }
+        String text = new String(head, charset != null ? charset : StandardCharsets.UTF_8);
+        return text.startsWith("\uFEFF") ? text.substring(1) : text;
+    }
+
+    private static Charset charsetOrNull(String name) {
+        try {
+            return Charset.forName(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String xmlElement(String xml, String name) {
+        Matcher element = Pattern.compile("<(?:\\w+:)?" + name + "(?:\\s[^>]*)?>(.*?)</(?:\\w+:)?" + name + ">",
+            Pattern.DOTALL).matcher(xml);
+        if (!element.find()) {
+            return null;
+        }
+        String value = CDATA.matcher(element.group(1)).replaceAll("$1");
+        value = TAGS.matcher(value).replaceAll("")
+            .replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+            .replace("&#39;", "'").replace("&apos;", "'").replace("&amp;", "&")
+            .replaceAll("\\s+", " ").trim();
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,308 @@
+package rss;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds feed autodiscovery links (&lt;link rel="alternate" type="application/rss+xml"
+ * href="..."&gt; and the Atom equivalent) in an HTML page.
+ *
+ * The page is tokenized as it streams in and reading stops at &lt;/head&gt; (or
+ * the first &lt;body&gt;), so usually only the first few KB are downloaded.
+ * Attributes may come in any order and any quoting style; hrefs are resolved
+ * against &lt;base href&gt; or the page URL.
+ */
+public class HtmlFeedLinkExtractor {
+
+    // Never read more than this much looking for the end of <head>
+    private static final int MAX_CHARS = 256 * 1024;
+
+    private static final Map<String, String> FEED_TYPES = Map.of(
+        "application/rss+xml", "RSS",
+        "application/rdf+xml", "RSS",
+        // No JSON Feed: FeedParser cannot read it
+        "application/atom+xml", "Atom"
+    );
+
+    // Elements whose content is text, which may contain "<" that is not a tag
+    private static final Set<String> RAW_TEXT_ELEMENTS = Set.of("script", "style", "title", "textarea", "noscript");
+
+    private final Reader reader;
+    private final Map<String, FeedLink> linksByUrl = new LinkedHashMap<>();
+    private URI base;
+    private int charsRead;
+    private int pushedBack = -1;
+
+    /**
+     * A feed advertised by a page
+     */
+    public static class FeedLink {
+        private final String url;
+        private final String title;
+        private final String format;
+
+        FeedLink(String url, String title, String format) {
+            this.url = url;
+            this.title = title;
+            this.format = format;
+        }
+
+        public String getUrl() { return url; }
+        /** The link's title attribute, or null */
+        public String getTitle() { return title; }
+        /** "RSS" or "Atom" */
+        public String getFormat() { return format; }
+    }
+
+    private HtmlFeedLinkExtractor(Reader reader, URI pageUri) {
+        this.reader = reader;
+        this.base = pageUri;
+    }
+
+    /**
+     * Read the page's head from reader and return its feed links, in document order.
+     * The reader is left positioned after the head; the caller closes it.
+     */
+    public static List<FeedLink> extract(Reader reader, String pageUrl) throws IOException {
+        URI pageUri;
+        try {
+            pageUri = new URI(pageUrl);
+        } catch (URISyntaxException e) {
+            pageUri = null;
+        }
+        HtmlFeedLinkExtractor extractor = new HtmlFeedLinkExtractor(reader, pageUri);
+        extractor.run();
+        return new ArrayList<>(extractor.linksByUrl.values());
+    }
+
+    private void run() throws IOException {
+        int c;
+        while ((c = read()) != -1) {
+            if (c != '<') {
+                continue;
+            }
+            int next = read();
+            if (next == '!') {
+                skipMarkupDeclaration();
+            } else if (next == '?') {
+                skipPast(">");
+            } else if (next == '/') {
+                String name = readTagName(read());
+                skipPast(">");
+                if (name.equals("head")) {
+                    return;
+                }
+            } else if (isAsciiLetter(next)) {
+                String name = readTagName(next);
+                Map<String, String> attributes = readAttributes();
+                if (name.equals("body")) {
+                    return;
+                }
+                handleStartTag(name, attributes);
+                if (RAW_TEXT_ELEMENTS.contains(name)) {
+                    skipPast("</" + name);
+                    skipPast(">");
+                }
+            }
+        }
+    }
+
+    private void handleStartTag(String name, Map<String, String> attributes) {
+        if (name.equals("base")) {
+            String href = attributes.get("href");
+            URI resolved = href == null ? null : resolve(href);
+            if (resolved != null) {
+                base = resolved;
+            }
+            return;
+        }
+        if (!name.equals("link")) {
+            return;
+        }
+
+        String rel = attributes.getOrDefault("rel", "").toLowerCase(Locale.ROOT);
+        if (!List.of(rel.trim().split("\\s+")).contains("alternate")) {
+            return;
+        }
+        String type = attributes.getOrDefault("type", "").toLowerCase(Locale.ROOT);
+        int parameters = type.indexOf(';');
+        String format = FEED_TYPES.get((parameters >= 0 ? type.substring(0, parameters) : type).trim());
+        String href = attributes.get("href");
+        if (format == null || href == null || href.isBlank()) {
+            return;
+        }
+
+        URI resolved = resolve(href);
+        if (resolved != null && resolved.getScheme() != null && resolved.getScheme().startsWith("http")) {
+            String title = attributes.get("title");
+            linksByUrl.putIfAbsent(resolved.toString(),
+                new FeedLink(resolved.toString(), title == null || title.isBlank() ? null : title.trim(), format));
+        }
+    }
+
+    private URI resolve(String href) {
+        try {
+            URI uri = new URI(href.trim().replace(" ", "%20"));
+            return base != null ? base.resolve(uri) : uri;
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Tag name starting with first, lower-cased; stops before whitespace, "/" or ">"
+     */
+    private String readTagName(int first) throws IOException {
+        StringBuilder name = new StringBuilder();
+        int c = first;
+        while (c != -1 && c != '>' && c != '/' && !Character.isWhitespace(c)) {
+            name.append(Character.toLowerCase((char) c));
+            c = read();
+        }
+        unread(c);
+        return name.toString();
+    }
+
+    /**
+     * Attributes up to and including the closing "&gt;". Names are lower-cased,
+     * values entity-decoded; the first occurrence of a name wins.
+     */
+    private Map<String, String> readAttributes() throws IOException {
+        Map<String, String> attributes = new HashMap<>();
+        while (true) {
+            int c = skipWhitespace();
+            if (c == -1 || c == '>') {
+                return attributes;
+            }
+            if (c == '/') {
+                continue;
+            }
+
+            StringBuilder name = new StringBuilder();
+            while (c != -1 && c != '=' && c != '>' && c != '/' && !Character.isWhitespace(c)) {
+                name.append(Character.toLowerCase((char) c));
+                c = read();
+            }
+            if (Character.isWhitespace(c)) {
+                c = skipWhitespace();
+            }
+
+            String value = "";
+            if (c == '=') {
+                value = readAttributeValue();
+            } else {
+                unread(c);
+            }
+            attributes.putIfAbsent(name.toString(), decodeEntities(value));
+        }
+    }
+
+    private String readAttributeValue() throws IOException {
+        int c = skipWhitespace();
+        StringBuilder value = new StringBuilder();
+        if (c == '"' || c == '\'') {
+            int quote = c;
+            while ((c = read()) != -1 && c != quote) {
+                value.append((char) c);
+            }
+            return value.toString();
+        }
+        while (c != -1 && c != '>' && !Character.isWhitespace(c)) {
+            value.append((char) c);
+            c = read();
+        }
+        unread(c);
+        return value.toString();
+    }
+
+    private static String decodeEntities(String value) {
+        if (value.indexOf('&') < 0) {
+            return value;
+        }
+        // &amp; last, so "&amp;lt;" decodes to "&lt;" rather than "<"
+        return value.replace("&quot;", "\"")
+            .replace("&#39;", "'")
+            .replace("&#x27;", "'")
+            .replace("&apos;", "'")
+            .replace("&lt;", "<")
+            .replace("&gt;", ">")
+            .replace("&#47;", "/")
+            .replace("&#x2F;", "/")
+            .replace("&amp;", "&");
+    }
+
+    /**
+     * Comments, doctype and CDATA after "&lt;!"
+     */
+    private void skipMarkupDeclaration() throws IOException {
+        int c = read();
+        if (c == '-') {
+            int d = read();
+            if (d == '-') {
+                skipPast("-->");
+                return;
+            }
+            unread(d);
+        }
+        skipPast(">");
+    }
+
+    /**
+     * Consume input through the next occurrence of marker (case-insensitive)
+     */
+    private void skipPast(String marker) throws IOException {
+        // The last marker.length() characters read, compared after each character
+        StringBuilder window = new StringBuilder(marker.length() + 1);
+        int c;
+        while ((c = read()) != -1) {
+            window.append(Character.toLowerCase((char) c));
+            if (window.length() > marker.length()) {
+                window.deleteCharAt(0);
+            }
+            if (window.length() == marker.length() && window.toString().equals(marker)) {
+                return;
+            }
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != -1 && Character.isWhitespace(c));
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -1) {
+            int c = pushedBack;
+            pushedBack = -1;
+            return c;
+        }
+        if (charsRead >= MAX_CHARS) {
+            return -1;
+        }
+        int c = reader.read();
+        if (c != -1) {
+            charsRead++;
+        }
+        return c;
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+
+    private static boolean isAsciiLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
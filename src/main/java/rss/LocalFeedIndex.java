@@ -0,0 +1,378 @@
+package rss;
+
+import db.AsyncDAO;
+import db.FeedDAO;
+import db.models.Feed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.Constants;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * In-memory search index over every feed the app knows about: the curated
+ * feeds, the sources table and results previously returned by remote searches.
+ *
+ * Tokens of titles, site names, categories and descriptions are kept in a
+ * sorted map for prefix lookups (search-as-you-type), and tokens are also
+ * indexed by trigram so infixes and small typos still match. Searching touches
+ * only the matching postings, so it answers in well under a millisecond.
+ */
+public class LocalFeedIndex {
+    private static final Logger logger = LoggerFactory.getLogger(LocalFeedIndex.class);
+    private static LocalFeedIndex instance;
+
+    // Field weights: a hit in the title counts most
+    private static final int TITLE = 10;
+    private static final int SITE = 8;
+    private static final int CATEGORY = 4;
+    private static final int DESCRIPTION = 2;
+
+    // Fraction of a query token's trigrams a token must share to match fuzzily
+    private static final double MIN_TRIGRAM_SIMILARITY = 0.6;
+
+    // Query words that say nothing about which feed is meant, e.g. in pasted URLs
+    private static final Set<String> NOISE_WORDS = Set.of("http", "https", "www", "com", "org", "net", "rss", "feed", "xml");
+
+    /**
+     * Where an entry came from; a better origin replaces an entry for the same URL
+     */
+    private enum Origin { SEEN, SOURCE, CURATED }
+
+    private final Map<String, Doc> docsByUrl = new HashMap<>();
+    private final Map<Integer, Doc> docsById = new HashMap<>();
+    // token -> (doc id -> best field weight)
+    private final TreeMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+    // trigram -> tokens containing it
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+    // Remote results in insertion order, for evicting the oldest
+    private final LinkedHashSet<String> seenUrls = new LinkedHashSet<>();
+    private int nextId;
+    private long sourcesLoadedAt;
+
+    private LocalFeedIndex() {
+    }
+
+    /**
+     * Singleton pattern for global access
+     */
+    public static synchronized LocalFeedIndex getInstance() {
+        if (instance == null) {
+            instance = new LocalFeedIndex();
+        }
+        return instance;
+    }
+
+    public synchronized void addCurated(Collection<RSSSearchService.SearchResult> feeds) {
+        for (RSSSearchService.SearchResult feed : feeds) {
+            add(feed, Origin.CURATED);
+        }
+    }
+
+    /**
+     * Remember feeds returned by a remote search, so later keystrokes find them locally
+     */
+    public synchronized void addSeen(Collection<RSSSearchService.SearchResult> results) {
+        for (RSSSearchService.SearchResult result : results) {
+            add(result, Origin.SEEN);
+        }
+        while (seenUrls.size() > Constants.LOCAL_INDEX_SEEN_LIMIT) {
+            remove(docsByUrl.get(seenUrls.iterator().next()));
+        }
+    }
+
+    public synchronized void addSources(Collection<Feed> sources) {
+        for (Feed source : sources) {
+            add(new RSSSearchService.SearchResult(
+                source.getTitle(),
+                source.getUrl(),
+                source.getDescription() != null ? source.getDescription() : "",
+                source.getCategory() != null ? source.getCategory() : "Library",
+                "library"
+            ), Origin.SOURCE);
+        }
+    }
+
+    /**
+     * Load the sources table in the background, unless it was loaded recently
+     */
+    public CompletableFuture<Void> refreshSources() {
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (now - sourcesLoadedAt < Constants.LOCAL_INDEX_REFRESH_MINUTES * 60_000L) {
+                return CompletableFuture.completedFuture(null);
+            }
+            sourcesLoadedAt = now;
+        }
+        return AsyncDAO.getInstance().feeds(FeedDAO::getActiveSources)
+            .thenAccept(sources -> {
+                addSources(sources);
+                logger.debug("Indexed {} sources for local feed search", sources.size());
+            })
+            .exceptionally(e -> {
+                logger.warn("Could not load sources into the local feed index", e);
+                synchronized (this) {
+                    sourcesLoadedAt = 0;
+                }
+                return null;
+            });
+    }
+
+    /**
+     * The best matches for query, best first. Every word of the query must match
+     * some word of the feed, as a prefix or approximately.
+     */
+    public synchronized List<RSSSearchService.SearchResult> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        List<String> meaningful = new ArrayList<>(words);
+        meaningful.removeAll(NOISE_WORDS);
+        if (!meaningful.isEmpty()) {
+            words = meaningful;
+        }
+        if (words.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Start with the most selective word, so the candidate set stays small
+        Map<String, Integer> matchCounts = new HashMap<>();
+        int fewest = Integer.MAX_VALUE;
+        for (String word : words) {
+            int count = prefixMatchCount(word, fewest);
+            matchCounts.put(word, count);
+            fewest = Math.min(fewest, count);
+        }
+        words.sort((a, b) -> Integer.compare(matchCounts.get(a), matchCounts.get(b)));
+
+        Map<Integer, Double> scores = null;
+        for (String word : words) {
+            // All words must match: later words only score the docs matched so far
+            Map<Integer, Double> wordScores = scoreWord(word, scores == null ? null : scores.keySet());
+            if (scores != null) {
+                for (Map.Entry<Integer, Double> entry : wordScores.entrySet()) {
+                    entry.setValue(entry.getValue() + scores.get(entry.getKey()));
+                }
+            }
+            scores = wordScores;
+            if (scores.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+
+        List<Doc> ranked = new ArrayList<>();
+        for (Integer id : scores.keySet()) {
+            ranked.add(docsById.get(id));
+        }
+        Map<Integer, Double> finalScores = scores;
+        ranked.sort((a, b) -> {
+            int byScore = Double.compare(finalScores.get(b.id) + b.origin.ordinal(), finalScores.get(a.id) + a.origin.ordinal());
+            return byScore != 0 ? byScore : Integer.compare(a.result.getTitle().length(), b.result.getTitle().length());
+        });
+
+        List<RSSSearchService.SearchResult> results = new ArrayList<>();
+        for (Doc doc : ranked.subList(0, Math.min(limit, ranked.size()))) {
+            results.add(doc.result);
+        }
+        return results;
+    }
+
+    /**
+     * Postings of the words starting with word (docs may be counted more than
+     * once), counting no further than just past atMost
+     */
+    private int prefixMatchCount(String word, int atMost) {
+        int count = 0;
+        for (Map<Integer, Integer> docs : postings.subMap(word, true, word + Character.MAX_VALUE, true).values()) {
+            count += docs.size();
+            if (count > atMost) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Score per doc for one query word: exact word hits beat prefixes. Only if no
+     * word starts with it are words sharing most of its trigrams tried, which
+     * catches infixes and typos. Only docs in candidates are scored, unless it is null.
+     */
+    private Map<Integer, Double> scoreWord(String word, Set<Integer> candidates) {
+        Map<Integer, Double> scores = new HashMap<>();
+        if (candidates != null && candidates.size() < prefixMatchCount(word, candidates.size())) {
+            // Few candidates left: checking their own words is cheaper than walking the prefix range
+            for (Integer id : candidates) {
+                for (Map.Entry<String, Integer> token : docsById.get(id).tokens.entrySet()) {
+                    if (token.getKey().startsWith(word)) {
+                        double quality = token.getKey().length() == word.length() ? 1.0 : 0.8;
+                        scores.merge(id, token.getValue() * quality, Math::max);
+                    }
+                }
+            }
+        } else {
+            NavigableMap<String, Map<Integer, Integer>> prefixed = postings.subMap(word, true, word + Character.MAX_VALUE, true);
+            for (Map.Entry<String, Map<Integer, Integer>> entry : prefixed.entrySet()) {
+                double quality = entry.getKey().length() == word.length() ? 1.0 : 0.8;
+                addScores(scores, entry.getValue(), quality, candidates);
+            }
+        }
+
+        if (scores.isEmpty() && word.length() >= 3) {
+            Set<String> queryTrigrams = trigramsOf(word);
+            Map<String, Integer> shared = new HashMap<>();
+            for (String trigram : queryTrigrams) {
+                for (String token : trigrams.getOrDefault(trigram, Set.of())) {
+                    shared.merge(token, 1, Integer::sum);
+                }
+            }
+            for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+                double similarity = (double) entry.getValue() / queryTrigrams.size();
+                if (similarity >= MIN_TRIGRAM_SIMILARITY) {
+                    addScores(scores, postings.get(entry.getKey()), 0.5 * similarity, candidates);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private static void addScores(Map<Integer, Double> scores, Map<Integer, Integer> docWeights, double quality,
+                                  Set<Integer> candidates) {
+        if (candidates != null && candidates.size() < docWeights.size()) {
+            for (Integer id : candidates) {
+                Integer weight = docWeights.get(id);
+                if (weight != null) {
+                    scores.merge(id, weight * quality, Math::max);
+                }
+            }
+            return;
+        }
+        for (Map.Entry<Integer, Integer> hit : docWeights.entrySet()) {
+            if (candidates == null || candidates.contains(hit.getKey())) {
+                scores.merge(hit.getKey(), hit.getValue() * quality, Math::max);
+            }
+        }
+    }
+
+    private void add(RSSSearchService.SearchResult result, Origin origin) {
+        if (result.getUrl() == null || result.getTitle() == null) {
+            return;
+        }
+        Doc existing = docsByUrl.get(result.getUrl());
+        if (existing != null) {
+            if (existing.origin.compareTo(origin) > 0) {
+                return;
+            }
+            remove(existing);
+        }
+
+        Doc doc = new Doc(nextId++, result, origin);
+        indexField(doc, result.getTitle(), TITLE);
+        indexField(doc, siteName(result.getUrl()), SITE);
+        indexField(doc, result.getCategory(), CATEGORY);
+        indexField(doc, result.getDescription(), DESCRIPTION);
+        for (Map.Entry<String, Integer> token : doc.tokens.entrySet()) {
+            boolean newToken = !postings.containsKey(token.getKey());
+            postings.computeIfAbsent(token.getKey(), t -> new HashMap<>()).put(doc.id, token.getValue());
+            if (newToken) {
+                for (String trigram : trigramsOf(token.getKey())) {
+                    trigrams.computeIfAbsent(trigram, t -> new HashSet<>()).add(token.getKey());
+                }
+            }
+        }
+        docsByUrl.put(result.getUrl(), doc);
+        docsById.put(doc.id, doc);
+        if (origin == Origin.SEEN) {
+            seenUrls.add(result.getUrl());
+        }
+    }
+
+    private void remove(Doc doc) {
+        if (doc == null) {
+            return;
+        }
+        docsByUrl.remove(doc.result.getUrl());
+        docsById.remove(doc.id);
+        seenUrls.remove(doc.result.getUrl());
+        for (String token : doc.tokens.keySet()) {
+            Map<Integer, Integer> docs = postings.get(token);
+            docs.remove(doc.id);
+            if (docs.isEmpty()) {
+                postings.remove(token);
+                for (String trigram : trigramsOf(token)) {
+                    Set<String> tokens = trigrams.get(trigram);
+                    tokens.remove(token);
+                    if (tokens.isEmpty()) {
+                        trigrams.remove(trigram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void indexField(Doc doc, String text, int weight) {
+        for (String token : tokenize(text)) {
+            doc.tokens.merge(token, weight, Math::max);
+        }
+    }
+
+    /**
+     * Host labels that name the site, e.g. "theverge" for www.theverge.com
+     */
+    private static String siteName(String url) {
+        try {
+            String host = new URI(url).getHost();
+            if (host == null) {
+                return "";
+            }
+            String[] labels = host.split("\\.");
+            return String.join(" ", Arrays.copyOf(labels, Math.max(labels.length - 1, 1)));
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static Set<String> trigramsOf(String token) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= token.length(); i++) {
+            result.add(token.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    private static class Doc {
+        private final int id;
+        private final RSSSearchService.SearchResult result;
+        private final Origin origin;
+        private final Map<String, Integer> tokens = new LinkedHashMap<>();
+
+        Doc(int id, RSSSearchService.SearchResult result, Origin origin) {
+            this.id = id;
+            this.result = result;
+            this.origin = origin;
+        }
+    }
+}
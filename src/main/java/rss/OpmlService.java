@@ -0,0 +1,317 @@
+package rss;
+
+import db.FeedDAO;
+import db.models.Feed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.Constants;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OPML import and export of a user's subscriptions.
+ *
+ * Import parses the outline with StAX, validates the feeds we don't know yet
+ * concurrently, creates them with one statement per batch and subscribes each
+ * list to all its feeds with a single statement. Top-level folders become
+ * lists of the same name. Export streams the subscriptions straight from the
+ * database into the OPML writer.
+ */
+public class OpmlService {
+    private static final Logger logger = LoggerFactory.getLogger(OpmlService.class);
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final ExecutorService IMPORT_EXECUTOR = Executors.newFixedThreadPool(Constants.OPML_IMPORT_THREADS, r -> {
+        Thread thread = new Thread(r, "opml-import-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final FeedDAO feedDAO;
+
+    public OpmlService() {
+        this.feedDAO = new FeedDAO();
+    }
+
+    /**
+     * A feed outline, with the folder it was in (null at the top level)
+     */
+    public static class OpmlFeed {
+        private final String title;
+        private final String url;
+        private final String folder;
+
+        public OpmlFeed(String title, String url, String folder) {
+            this.title = title;
+            this.url = url;
+            this.folder = folder;
+        }
+
+        public String getTitle() { return title; }
+        public String getUrl() { return url; }
+        public String getFolder() { return folder; }
+    }
+
+    /**
+     * Outcome of an import
+     */
+    public static class ImportResult {
+        private final int total;
+        private final int subscribed;
+        private final Map<String, String> failed;
+
+        public ImportResult(int total, int subscribed, Map<String, String> failed) {
+            this.total = total;
+            this.subscribed = subscribed;
+            this.failed = failed;
+        }
+
+        /** Feeds in the file */
+        public int getTotal() { return total; }
+        /** New subscriptions; feeds the user already had in a list are not counted */
+        public int getSubscribed() { return subscribed; }
+        /** Why each feed that could not be imported failed, by URL */
+        public Map<String, String> getFailed() { return failed; }
+    }
+
+    /**
+     * The feeds of an OPML document, in document order without duplicates
+     */
+    public static List<OpmlFeed> parse(InputStream in) throws XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // OPML files come from anywhere: no DTDs or external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        Map<String, OpmlFeed> feeds = new LinkedHashMap<>();
+        // One entry per open outline: its folder name, or null for a feed
+        Deque<Optional<String>> open = new ArrayDeque<>();
+        String folder = null;
+
+        XMLStreamReader reader = factory.createXMLStreamReader(in);
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("outline")) {
+                    String url = attribute(reader, "xmlUrl");
+                    String title = attribute(reader, "title");
+                    if (title == null) {
+                        title = attribute(reader, "text");
+                    }
+
+                    if (url != null) {
+                        feeds.putIfAbsent(url, new OpmlFeed(title, url, folder));
+                        open.push(Optional.empty());
+                    } else {
+                        // Nested folders are flattened into the top-level one
+                        if (folder == null && title != null) {
+                            folder = title;
+                            open.push(Optional.of(title));
+                        } else {
+                            open.push(Optional.empty());
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("outline")) {
+                    if (!open.isEmpty() && open.pop().isPresent()) {
+                        folder = null;
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return new ArrayList<>(feeds.values());
+    }
+
+    private static String attribute(XMLStreamReader reader, String name) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            // Some exporters get the case of xmlUrl wrong
+            if (reader.getAttributeLocalName(i).equalsIgnoreCase(name)) {
+                String value = reader.getAttributeValue(i).trim();
+                return value.isEmpty() ? null : value;
+            }
+        }
+        return null;
+    }
+
+    public ImportResult importOpml(int userId, int defaultListId, InputStream in) throws XMLStreamException {
+        return importFeeds(userId, defaultListId, parse(in));
+    }
+
+    /**
+     * Subscribe the user to feeds. Top-level feeds go to defaultListId, feeds in
+     * a folder to the user's list of that name, which is created if needed.
+     */
+    public ImportResult importFeeds(int userId, int defaultListId, List<OpmlFeed> feeds) {
+        long start = System.currentTimeMillis();
+        Map<String, String> failed = new LinkedHashMap<>();
+        List<String> urls = new ArrayList<>();
+        for (OpmlFeed feed : feeds) {
+            urls.add(feed.getUrl());
+        }
+
+        // Only feeds we have never seen need checking
+        Map<String, Integer> sourceIds = feedDAO.findSourceIdsByUrl(urls);
+        Map<OpmlFeed, CompletableFuture<FeedValidator.Verdict>> probes = new LinkedHashMap<>();
+        for (OpmlFeed feed : feeds) {
+            if (!sourceIds.containsKey(feed.getUrl())) {
+                probes.put(feed, CompletableFuture.supplyAsync(() -> FeedValidator.validate(feed.getUrl()), IMPORT_EXECUTOR));
+            }
+        }
+
+        List<Feed> newSources = new ArrayList<>();
+        // OPML URL -> where the feed actually is; http URLs often redirect to https
+        Map<String, String> feedUrls = new HashMap<>();
+        for (Map.Entry<OpmlFeed, CompletableFuture<FeedValidator.Verdict>> probe : probes.entrySet()) {
+            OpmlFeed feed = probe.getKey();
+            FeedValidator.Verdict verdict = probe.getValue().join();
+            if (!verdict.isValid()) {
+                failed.put(feed.getUrl(), verdict.getMessage());
+                continue;
+            }
+            String title = feed.getTitle() != null ? feed.getTitle()
+                : verdict.getTitle() != null ? verdict.getTitle() : feed.getUrl();
+            Feed source = new Feed(userId, title, verdict.getFeedUrl(), feed.getFolder());
+            source.setDescription(verdict.getDescription());
+            newSources.add(source);
+            feedUrls.put(feed.getUrl(), verdict.getFeedUrl());
+        }
+        if (!newSources.isEmpty()) {
+            Map<String, Integer> created = feedDAO.createSources(newSources);
+            feedUrls.forEach((opmlUrl, feedUrl) -> {
+                Integer sourceId = created.get(feedUrl);
+                if (sourceId != null) {
+                    sourceIds.put(opmlUrl, sourceId);
+                }
+            });
+            // Searchable in discovery straight away, without waiting for the next index refresh
+            newSources.removeIf(source -> source.getId() == 0);
+            LocalFeedIndex.getInstance().addSources(newSources);
+        }
+
+        // Group the sources by target list
+        Map<String, Integer> listIds = new HashMap<>();
+        for (FeedDAO.UserList list : feedDAO.getUserLists(userId)) {
+            listIds.putIfAbsent(list.getName(), list.getId());
+        }
+        Map<Integer, Set<Integer>> sourcesByList = new LinkedHashMap<>();
+        for (OpmlFeed feed : feeds) {
+            Integer sourceId = sourceIds.get(feed.getUrl());
+            if (sourceId == null) {
+                failed.putIfAbsent(feed.getUrl(), "Could not be saved");
+                continue;
+            }
+            Integer listId = feed.getFolder() == null ? Integer.valueOf(defaultListId) : listIds.computeIfAbsent(feed.getFolder(),
+                name -> feedDAO.createList(userId, name).map(FeedDAO.UserList::getId).orElse(defaultListId));
+            sourcesByList.computeIfAbsent(listId, id -> new LinkedHashSet<>()).add(sourceId);
+        }
+
+        int subscribed = 0;
+        for (Map.Entry<Integer, Set<Integer>> list : sourcesByList.entrySet()) {
+            subscribed += Math.max(feedDAO.subscribeAllToList(list.getKey(), list.getValue()), 0);
+        }
+
+        logger.info("Imported OPML for user {}: {} feeds, {} new subscriptions, {} failed, in {} ms",
+            userId, feeds.size(), subscribed, failed.size(), System.currentTimeMillis() - start);
+        return new ImportResult(feeds.size(), subscribed, failed);
+    }
+
+    /**
+     * Write the user's subscriptions as OPML 2.0, one folder per list. Rows are
+     * written as they are read, so memory use does not grow with the export.
+     */
+    public boolean export(int userId, OutputStream out) {
+        try {
+            XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeStartElement("opml");
+            writer.writeAttribute("version", "2.0");
+            writer.writeStartElement("head");
+            writer.writeStartElement("title");
+            writer.writeCharacters(Constants.APP_NAME + " subscriptions");
+            writer.writeEndElement();
+            writer.writeStartElement("dateCreated");
+            writer.writeCharacters(ZonedDateTime.now().format(DateTimeFormatter.RFC_1123_DATE_TIME));
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeStartElement("body");
+
+            String[] currentList = {null};
+            boolean streamed = feedDAO.streamSubscriptions(userId, (listName, source) -> {
+                try {
+                    if (!listName.equals(currentList[0])) {
+                        if (currentList[0] != null) {
+                            writer.writeEndElement();
+                        }
+                        writer.writeStartElement("outline");
+                        writer.writeAttribute("text", listName);
+                        writer.writeAttribute("title", listName);
+                        currentList[0] = listName;
+                    }
+                    writer.writeEmptyElement("outline");
+                    writer.writeAttribute("type", "rss");
+                    writer.writeAttribute("text", source.getTitle());
+                    writer.writeAttribute("title", source.getTitle());
+                    writer.writeAttribute("xmlUrl", source.getUrl());
+                    if (source.getDescription() != null) {
+                        writer.writeAttribute("description", source.getDescription());
+                    }
+                } catch (XMLStreamException e) {
+                    throw new ExportException(e);
+                }
+            });
+            if (!streamed) {
+                return false;
+            }
+            if (currentList[0] != null) {
+                writer.writeEndElement();
+            }
+
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+            return true;
+        } catch (XMLStreamException e) {
+            logger.error("Error writing OPML export for user {}", userId, e);
+        } catch (ExportException e) {
+            logger.error("Error writing OPML export for user {}", userId, e.getCause());
+        }
+        return false;
+    }
+
+    /**
+     * Carries a write failure out of the row callback
+     */
+    private static class ExportException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ExportException(XMLStreamException cause) {
+            super(cause);
+        }
+    }
+}
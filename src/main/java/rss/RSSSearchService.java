@@ -1,18 +1,25 @@
 package rss;
 
 import utils.Constants;
+import utils.ExpiringCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Powerful RSS search service that can find RSS feeds from:
@@ -24,6 +31,20 @@ import java.util.regex.Pattern;
 public class RSSSearchService {
     private static final Logger logger = LoggerFactory.getLogger(RSSSearchService.class);
     private static final FeedSearchAPI feedSearchAPI = new FeedSearchAPI();
+    private static final int MAX_RESULTS = 50;
+    
+    // Runs the search providers of a query side by side
+    private static final AtomicInteger PROVIDER_THREADS = new AtomicInteger();
+    private static final ExecutorService PROVIDER_EXECUTOR = Executors.newFixedThreadPool(4, r -> {
+        Thread thread = new Thread(r, "rss-search-" + PROVIDER_THREADS.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // Whole-search results per normalized query, so retyping or backspacing is instant
+    private static final ExpiringCache<String, List<SearchResult>> searchCache = new ExpiringCache<>(
+        "feed search", Duration.ofMinutes(Constants.SEARCH_CACHE_TTL_MINUTES),
+        Duration.ofSeconds(Constants.SEARCH_FAILURE_TTL_SECONDS), Constants.SEARCH_CACHE_SIZE);
     
     public static class SearchResult {
         private final String title;
@@ -50,45 +71,118 @@ public class RSSSearchService {
     
     /**
      * Main search method that searches across all sources
-     * Enhanced with feedsearch.dev API for better results
+     * Enhanced with feedsearch.dev API for better results.
+     * Results are cached per query, and concurrent identical searches share one lookup.
      */
     public static List<SearchResult> searchFeeds(String query) {
-        List<SearchResult> results = new ArrayList<>();
-        
         if (query == null || query.trim().isEmpty()) {
             return getPopularFeeds();
         }
         
         String cleanQuery = query.trim().toLowerCase();
+        try {
+            return new ArrayList<>(searchCache.get(cleanQuery,
+                () -> runProviders(cleanQuery, SearchCancellation.NONE, results -> { }).get()));
+        } catch (Exception e) {
+            logger.error("Feed search failed for: {}", cleanQuery, e);
+            return new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Search all providers concurrently, handing each provider's new results to
+     * onResults as soon as that provider finishes (on a search thread, in order).
+     * The returned future completes with everything found once all providers are
+     * done. Cancelling the search aborts its HTTP requests and cancels the future.
+     */
+    public static CompletableFuture<List<SearchResult>> searchFeedsStreaming(String query, SearchCancellation cancellation,
+                                                                             Consumer<List<SearchResult>> onResults) {
+        if (query == null || query.trim().isEmpty()) {
+            List<SearchResult> popular = getPopularFeeds();
+            onResults.accept(popular);
+            return CompletableFuture.completedFuture(popular);
+        }
+        
+        String cleanQuery = query.trim().toLowerCase();
+        Optional<List<SearchResult>> cached = searchCache.getIfPresent(cleanQuery);
+        if (cached.isPresent()) {
+            onResults.accept(new ArrayList<>(cached.get()));
+            return CompletableFuture.completedFuture(new ArrayList<>(cached.get()));
+        }
         
-        // 1. Use feedsearch.dev API for primary search
-        logger.info("Using feedsearch.dev API for query: {}", cleanQuery);
-        results.addAll(searchWithFeedSearchAPI(cleanQuery));
+        CompletableFuture<List<SearchResult>> search = runProviders(cleanQuery, cancellation, onResults);
+        search.thenAccept(results -> {
+            if (!cancellation.isCancelled()) {
+                searchCache.put(cleanQuery, List.copyOf(results));
+            }
+        });
+        cancellation.onCancel(() -> search.cancel(false));
+        return search;
+    }
+    
+    private static CompletableFuture<List<SearchResult>> runProviders(String cleanQuery, SearchCancellation cancellation,
+                                                                      Consumer<List<SearchResult>> onResults) {
+        List<Supplier<List<SearchResult>>> providers = new ArrayList<>();
         
-        // 2. Check if it's a direct URL - use feedsearch.dev
+        // 1. feedsearch.dev (by website for URLs, by keyword otherwise)
+        providers.add(() -> searchWithFeedSearchAPI(cleanQuery, cancellation));
+        
+        // 1b. For URLs, the feeds the page links to and those at the usual paths
         if (isValidUrl(cleanQuery)) {
-            results.addAll(searchWithFeedSearchAPI(cleanQuery));
+            providers.add(() -> discoverFeedsFromUrl(cleanQuery, cancellation));
         }
         
-        // 3. Search YouTube if it looks like a channel search
+        // 2. YouTube if it looks like a channel search
         if (cleanQuery.contains("youtube") || cleanQuery.contains("yt") || cleanQuery.startsWith("@")) {
-            results.addAll(searchYouTube(cleanQuery));
+            providers.add(() -> searchYouTube(cleanQuery, cancellation));
         }
         
-        // 4. If we don't have many results, fall back to our curated sources
-        if (results.size() < 5) {
-            results.addAll(searchRSSDirectories(cleanQuery));
-            results.addAll(searchWebsiteDomains(cleanQuery));
+        // 3. Our curated directory and well-known site feeds (no network)
+        providers.add(() -> searchRSSDirectories(cleanQuery));
+        providers.add(() -> searchWebsiteDomains(cleanQuery));
+        
+        // Deduplicated and limited across providers, in arrival order
+        List<SearchResult> merged = new ArrayList<>();
+        Set<String> seenUrls = new HashSet<>();
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (Supplier<List<SearchResult>> provider : providers) {
+            calls.add(CompletableFuture.supplyAsync(provider, PROVIDER_EXECUTOR)
+                .thenAccept(results -> {
+                    synchronized (merged) {
+                        if (cancellation.isCancelled()) {
+                            return;
+                        }
+                        List<SearchResult> fresh = new ArrayList<>();
+                        for (SearchResult result : results) {
+                            if (merged.size() + fresh.size() < MAX_RESULTS && seenUrls.add(result.getUrl())) {
+                                fresh.add(result);
+                            }
+                        }
+                        merged.addAll(fresh);
+                        LocalFeedIndex.getInstance().addSeen(fresh);
+                        if (!fresh.isEmpty()) {
+                            onResults.accept(fresh);
+                        }
+                    }
+                })
+                .exceptionally(e -> {
+                    logger.warn("Feed search provider failed for: {}", cleanQuery, e);
+                    return null;
+                }));
         }
         
-        // Remove duplicates and limit results
-        return removeDuplicates(results).subList(0, Math.min(results.size(), 50));
+        return CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0]))
+            .thenApply(done -> {
+                synchronized (merged) {
+                    return new ArrayList<>(merged);
+                }
+            });
     }
     
     /**
      * Search using feedsearch.dev API
      */
-    private static List<SearchResult> searchWithFeedSearchAPI(String query) {
+    private static List<SearchResult> searchWithFeedSearchAPI(String query, SearchCancellation cancellation) {
         List<SearchResult> results = new ArrayList<>();
         
         try {
@@ -96,9 +190,9 @@ public class RSSSearchService {
             
             // Check if it's a URL or a keyword search
             if (isValidUrl(query)) {
-                apiResults = feedSearchAPI.searchByWebsite(query);
+                apiResults = feedSearchAPI.searchByWebsite(query, cancellation);
             } else {
-                apiResults = feedSearchAPI.searchByKeyword(query);
+                apiResults = feedSearchAPI.searchByKeyword(query, cancellation);
             }
             
             // Convert API results to our SearchResult format
@@ -137,6 +231,14 @@ public class RSSSearchService {
      * Discover RSS feeds from a given website URL
      */
     public static List<SearchResult> discoverFeedsFromUrl(String websiteUrl) {
+        return discoverFeedsFromUrl(websiteUrl, SearchCancellation.NONE);
+    }
+    
+    /**
+     * Feeds the page links to plus feeds at the usual paths, all verified in one
+     * concurrent batch
+     */
+    private static List<SearchResult> discoverFeedsFromUrl(String websiteUrl, SearchCancellation cancellation) {
         List<SearchResult> results = new ArrayList<>();
         
         try {
@@ -153,21 +255,34 @@ public class RSSSearchService {
             
             String domain = extractDomain(websiteUrl);
             
+            // Feeds the page itself advertises come first
+            Map<String, SearchResult> advertised = new LinkedHashMap<>();
+            for (SearchResult result : discoverFeedsFromPage(websiteUrl, cancellation)) {
+                advertised.put(result.getUrl(), result);
+            }
+            
+            List<String> candidates = new ArrayList<>(advertised.keySet());
             for (String path : commonPaths) {
-                String rssUrl = websiteUrl.replaceAll("/$", "") + path;
-                if (isValidRSSFeed(rssUrl)) {
-                    results.add(new SearchResult(
-                        domain + " RSS Feed",
-                        rssUrl,
-                        "RSS feed from " + domain,
-                        "Website",
-                        "website"
-                    ));
-                }
+                candidates.add(websiteUrl.replaceAll("/$", "") + path);
             }
             
-            // Try to parse HTML and find RSS links
-            results.addAll(parseHtmlForRSSLinks(websiteUrl));
+            // Candidates that redirect to the same feed (http and https, say) are listed once
+            Set<String> feedUrls = new HashSet<>();
+            for (FeedValidator.Verdict feed : FeedValidator.validFeeds(candidates, cancellation)) {
+                if (!feedUrls.add(feed.getFeedUrl())) {
+                    continue;
+                }
+                SearchResult link = advertised.get(feed.getUrl());
+                String title = feed.getTitle() != null ? feed.getTitle()
+                    : link != null ? link.getTitle() : domain + " " + feed.getFormat() + " Feed";
+                results.add(new SearchResult(
+                    title,
+                    feed.getFeedUrl(),
+                    feed.getDescription() != null ? feed.getDescription() : feed.getFormat() + " feed from " + domain,
+                    "Website",
+                    "website"
+                ));
+            }
             
         } catch (Exception e) {
             logger.warn("Error discovering feeds from URL: " + websiteUrl, e);
@@ -180,33 +295,50 @@ public class RSSSearchService {
      * Search YouTube channels and users
      */
     public static List<SearchResult> searchYouTube(String query) {
+        return searchYouTube(query, SearchCancellation.NONE);
+    }
+    
+    private static List<SearchResult> searchYouTube(String query, SearchCancellation cancellation) {
         List<SearchResult> results = new ArrayList<>();
         
         try {
             // Remove @ symbol if present
             String cleanQuery = query.replace("@", "").trim();
             
-            // Try as channel ID first
-            if (cleanQuery.startsWith("UC") && cleanQuery.length() == 24) {
-                String rssUrl = Constants.YOUTUBE_RSS_BASE + cleanQuery;
-                if (isValidRSSFeed(rssUrl)) {
-                    results.add(new SearchResult(
-                        "YouTube Channel",
-                        rssUrl,
-                        "YouTube channel RSS feed",
-                        "YouTube",
-                        "youtube"
-                    ));
+            // Every word of the query may be a channel id or a handle ("@mkbhd @veritasium")
+            List<String> channelIds = new ArrayList<>();
+            List<String> handles = new ArrayList<>();
+            for (String word : query.trim().split("[\\s,]+")) {
+                String name = word.startsWith("@") ? word.substring(1) : word;
+                if (YouTubeChannelResolver.isChannelId(name)) {
+                    channelIds.add(name);
+                } else if (!name.equals("youtube") && !name.equals("yt") && YouTubeChannelResolver.isHandle(name)) {
+                    handles.add(name);
+                }
+            }
+            
+            // Handles resolve to channel ids from the local cache, or concurrently over the network
+            Map<String, String> resolved = YouTubeChannelResolver.getInstance().resolveAll(handles, cancellation);
+            channelIds.addAll(resolved.values());
+            
+            List<String> candidates = new ArrayList<>();
+            for (String channelId : channelIds) {
+                candidates.add(Constants.YOUTUBE_RSS_BASE + channelId);
+            }
+            // Legacy username feeds, for names that are not handles
+            for (String handle : handles) {
+                if (!resolved.containsKey(handle)) {
+                    candidates.add(Constants.YOUTUBE_USER_RSS_BASE + handle);
                 }
             }
             
-            // Try as username
-            String userRssUrl = Constants.YOUTUBE_USER_RSS_BASE + cleanQuery;
-            if (isValidRSSFeed(userRssUrl)) {
+            for (FeedValidator.Verdict feed : FeedValidator.validFeeds(candidates, cancellation)) {
+                boolean byUser = feed.getUrl().startsWith(Constants.YOUTUBE_USER_RSS_BASE);
+                String fallbackTitle = byUser ? feed.getUrl().substring(Constants.YOUTUBE_USER_RSS_BASE.length()) : "YouTube Channel";
                 results.add(new SearchResult(
-                    cleanQuery + " (YouTube)",
-                    userRssUrl,
-                    "YouTube user RSS feed",
+                    (feed.getTitle() != null ? feed.getTitle() : fallbackTitle) + " (YouTube)",
+                    feed.getFeedUrl(),
+                    byUser ? "YouTube user RSS feed" : "YouTube channel RSS feed",
                     "YouTube",
                     "youtube"
                 ));
@@ -288,44 +420,75 @@ public class RSSSearchService {
     }
     
     /**
-     * Parse HTML content to find RSS feed links
+     * Feeds advertised by a page's &lt;link rel="alternate"&gt; tags. Only the
+     * page's head is downloaded; the connection is dropped after &lt;/head&gt;.
      */
-    private static List<SearchResult> parseHtmlForRSSLinks(String url) {
+    private static List<SearchResult> discoverFeedsFromPage(String url, SearchCancellation cancellation) {
         List<SearchResult> results = new ArrayList<>();
+        if (cancellation.isCancelled()) {
+            return results;
+        }
         
+        HttpURLConnection conn = null;
         try {
-            String html = fetchHtml(url);
-            if (html == null) return results;
+            conn = (HttpURLConnection) new URL(url).openConnection();
+            conn.setRequestProperty("User-Agent", Constants.USER_AGENT);
+            conn.setRequestProperty("Accept", "text/html,application/xhtml+xml");
+            conn.setConnectTimeout(10000);
+            conn.setReadTimeout(10000);
             
-            // Look for RSS link tags
-            Pattern rssPattern = Pattern.compile(
-                "<link[^>]*type=[\"']application/rss\\+xml[\"'][^>]*href=[\"']([^\"']+)[\"'][^>]*>",
-                Pattern.CASE_INSENSITIVE
-            );
+            List<HtmlFeedLinkExtractor.FeedLink> links;
+            SearchCancellation.Registration abort = cancellation.onCancel(conn::disconnect);
+            try (Reader reader = new InputStreamReader(conn.getInputStream(), charsetOf(conn.getContentType()))) {
+                // getURL() is the final URL after redirects, which relative hrefs resolve against
+                links = HtmlFeedLinkExtractor.extract(reader, conn.getURL().toString());
+            } finally {
+                abort.close();
+            }
             
-            Matcher matcher = rssPattern.matcher(html);
-            while (matcher.find()) {
-                String rssUrl = matcher.group(1);
-                if (!rssUrl.startsWith("http")) {
-                    rssUrl = url + "/" + rssUrl.replaceAll("^/", "");
-                }
-                
+            String domain = extractDomain(conn.getURL().toString());
+            for (HtmlFeedLinkExtractor.FeedLink link : links) {
                 results.add(new SearchResult(
-                    extractDomain(url) + " RSS",
-                    rssUrl,
-                    "Auto-discovered RSS feed",
+                    link.getTitle() != null ? link.getTitle() : domain + " " + link.getFormat(),
+                    link.getUrl(),
+                    "Auto-discovered " + link.getFormat() + " feed from " + domain,
                     "Website",
                     "website"
                 ));
             }
-            
         } catch (Exception e) {
-            logger.warn("Error parsing HTML for RSS links: " + url, e);
+            if (!cancellation.isCancelled()) {
+                logger.warn("Error discovering feed links in page: " + url, e);
+            }
+        } finally {
+            if (conn != null) {
+                // Don't download (or keep alive for) the rest of the page
+                conn.disconnect();
+            }
         }
         
         return results;
     }
     
+    /**
+     * Charset from a Content-Type header, UTF-8 if missing or unknown
+     */
+    private static Charset charsetOf(String contentType) {
+        if (contentType != null) {
+            for (String parameter : contentType.split(";")) {
+                String[] pair = parameter.trim().split("=", 2);
+                if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("charset")) {
+                    try {
+                        return Charset.forName(pair[1].trim().replace("\"", ""));
+                    } catch (IllegalArgumentException e) {
+                        break;
+                    }
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+    
     /**
      * Get feeds for a specific category
      */
@@ -382,41 +545,6 @@ public class RSSSearchService {
         return url.matches(Constants.URL_PATTERN);
     }
     
-    private static boolean isValidRSSFeed(String url) {
-        try {
-            HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
-            conn.setRequestMethod("HEAD");
-            conn.setConnectTimeout(5000);
-            conn.setReadTimeout(5000);
-            conn.setRequestProperty("User-Agent", Constants.USER_AGENT);
-            
-            int responseCode = conn.getResponseCode();
-            return responseCode >= 200 && responseCode < 400;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-    
-    private static String fetchHtml(String url) {
-        try {
-            HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
-            conn.setRequestProperty("User-Agent", Constants.USER_AGENT);
-            conn.setConnectTimeout(10000);
-            conn.setReadTimeout(10000);
-            
-            StringBuilder content = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    content.append(line).append("\n");
-                }
-            }
-            return content.toString();
-        } catch (Exception e) {
-            return null;
-        }
-    }
-    
     private static String extractDomain(String url) {
         try {
             return new URL(url).getHost().replaceAll("^www\\.", "");
@@ -425,16 +553,4 @@ public class RSSSearchService {
         }
     }
     
-    private static List<SearchResult> removeDuplicates(List<SearchResult> results) {
-        Set<String> seen = new HashSet<>();
-        List<SearchResult> unique = new ArrayList<>();
-        
-        for (SearchResult result : results) {
-            if (seen.add(result.getUrl())) {
-                unique.add(result);
-            }
-        }
-        
-        return unique;
-    }
 }
@@ -0,0 +1,71 @@
+package rss;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cancellation token for a feed search. Code doing blocking I/O registers a
+ * way to abort it (e.g. HttpGet::cancel or HttpURLConnection::disconnect),
+ * which runs as soon as the search is cancelled.
+ */
+public class SearchCancellation {
+    /**
+     * For callers that never cancel
+     */
+    public static final SearchCancellation NONE = new SearchCancellation();
+
+    private final List<Runnable> aborts = new ArrayList<>();
+    private boolean cancelled;
+
+    /**
+     * Handle for an abort action, closed once the I/O it guards has finished
+     */
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    public void cancel() {
+        if (this == NONE) {
+            throw new UnsupportedOperationException("SearchCancellation.NONE cannot be cancelled");
+        }
+        List<Runnable> toRun;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            toRun = new ArrayList<>(aborts);
+            aborts.clear();
+        }
+        for (Runnable abort : toRun) {
+            try {
+                abort.run();
+            } catch (RuntimeException e) {
+                // Aborting is best effort; the search is discarded anyway
+            }
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Run abort when the search is cancelled, or right away if it already is
+     */
+    public Registration onCancel(Runnable abort) {
+        synchronized (this) {
+            if (!cancelled) {
+                aborts.add(abort);
+                return () -> {
+                    synchronized (SearchCancellation.this) {
+                        aborts.remove(abort);
+                    }
+                };
+            }
+        }
+        abort.run();
+        return () -> { };
+    }
+}
@@ -0,0 +1,283 @@
+package rss;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import utils.Constants;
+import utils.ExpiringCache;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves YouTube handles (@name) to channel ids, which is what channel feeds
+ * ({@link Constants#YOUTUBE_RSS_BASE}) need. Resolutions are kept in a small
+ * properties file under {@link Constants#CACHE_DIR} for
+ * {@link Constants#YOUTUBE_CHANNEL_TTL_DAYS} days, so a handle costs one page
+ * fetch per month rather than one per search. Unknown handles and failures are
+ * remembered in memory for a short while.
+ */
+public class YouTubeChannelResolver {
+    private static final Logger logger = LoggerFactory.getLogger(YouTubeChannelResolver.class);
+    private static YouTubeChannelResolver instance;
+
+    private static final Path CACHE_FILE = Paths.get(Constants.CACHE_DIR, "youtube-channels.properties");
+    private static final Pattern HANDLE = Pattern.compile("[A-Za-z0-9._-]{3,30}");
+    private static final Pattern CHANNEL_ID_FORMAT = Pattern.compile("UC[A-Za-z0-9_-]{22}");
+    // The canonical link and channel metadata are in the page's head, ahead of any other channel
+    private static final Pattern CHANNEL_ID = Pattern.compile(
+        "(?:youtube\\.com/channel/|\"externalId\":\"|itemprop=\"identifier\" content=\")(UC[A-Za-z0-9_-]{22})");
+    // Stop reading a channel page after this much without finding the id
+    private static final int MAX_PAGE_CHARS = 1024 * 1024;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final ExecutorService RESOLVE_EXECUTOR = Executors.newFixedThreadPool(4, r -> {
+        Thread thread = new Thread(r, "youtube-resolve-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // handle -> channel id and when it was resolved; mirrored to CACHE_FILE
+    private final Map<String, Resolution> resolved = new ConcurrentHashMap<>();
+
+    // Coalesces concurrent page fetches; a null value means there is no such handle
+    private final ExpiringCache<String, String> lookups = new ExpiringCache<>(
+        "youtube handles", Duration.ofMinutes(Constants.SEARCH_CACHE_TTL_MINUTES),
+        Duration.ofSeconds(Constants.SEARCH_FAILURE_TTL_SECONDS), Constants.SEARCH_CACHE_SIZE);
+
+    private YouTubeChannelResolver() {
+        load();
+    }
+
+    /**
+     * Singleton pattern for global access
+     */
+    public static synchronized YouTubeChannelResolver getInstance() {
+        if (instance == null) {
+            instance = new YouTubeChannelResolver();
+        }
+        return instance;
+    }
+
+    /**
+     * Whether text could be a handle (with or without the leading @)
+     */
+    public static boolean isHandle(String text) {
+        return HANDLE.matcher(text.startsWith("@") ? text.substring(1) : text).matches();
+    }
+
+    public static boolean isChannelId(String text) {
+        return CHANNEL_ID_FORMAT.matcher(text).matches();
+    }
+
+    /**
+     * The channel id for a handle, or null if there is no such channel or YouTube
+     * could not be reached
+     */
+    public String resolve(String handle, SearchCancellation cancellation) {
+        String key = normalize(handle);
+        Resolution cached = resolved.get(key);
+        if (cached != null && !cached.isExpired()) {
+            return cached.channelId;
+        }
+
+        try {
+            while (!cancellation.isCancelled()) {
+                try {
+                    return lookups.get(key, () -> fetchChannelId(key, cancellation));
+                } catch (CancellationException e) {
+                    // We joined a fetch that another search cancelled; try again unless we were cancelled too
+                    logger.debug("Shared resolution of @{} was cancelled", key);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not resolve YouTube handle @{}: {}", key, e.getMessage());
+        } catch (Exception e) {
+            logger.warn("Unexpected error resolving YouTube handle @{}", key, e);
+        }
+        // Better a stale id than none
+        return cached != null ? cached.channelId : null;
+    }
+
+    /**
+     * Resolve several handles concurrently. Returns the channel id per handle
+     * (as given) for those that resolved, in the order given.
+     */
+    public Map<String, String> resolveAll(Collection<String> handles, SearchCancellation cancellation) {
+        Map<String, CompletableFuture<String>> pending = new LinkedHashMap<>();
+        for (String handle : new LinkedHashSet<>(handles)) {
+            pending.put(handle, CompletableFuture.supplyAsync(() -> resolve(handle, cancellation), RESOLVE_EXECUTOR));
+        }
+
+        Map<String, String> channelIds = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<String>> resolution : pending.entrySet()) {
+            String channelId = resolution.getValue().join();
+            if (channelId != null) {
+                channelIds.put(resolution.getKey(), channelId);
+            }
+        }
+        return channelIds;
+    }
+
+    private String fetchChannelId(String handle, SearchCancellation cancellation) throws IOException {
+        URL url = new URL("https://www.youtube.com/@" + URLEncoder.encode(handle, StandardCharsets.UTF_8));
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setRequestProperty("User-Agent", Constants.USER_AGENT);
+        // Skips the EU cookie consent interstitial, which has no channel id
+        conn.setRequestProperty("Cookie", "CONSENT=YES+");
+        conn.setConnectTimeout(5000);
+        conn.setReadTimeout(10000);
+
+        SearchCancellation.Registration abort = cancellation.onCancel(conn::disconnect);
+        try {
+            int status = conn.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                return null;
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP " + status + " for " + url);
+            }
+
+            String channelId = scanForChannelId(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8));
+            if (channelId != null) {
+                remember(handle, channelId);
+                logger.debug("Resolved YouTube handle @{} to {}", handle, channelId);
+            }
+            return channelId;
+        } catch (IOException e) {
+            // Not a failure of YouTube, so it must not be cached as one
+            if (cancellation.isCancelled()) {
+                throw new CancellationException("Resolution of @" + handle + " cancelled");
+            }
+            throw e;
+        } finally {
+            abort.close();
+            // Don't download the rest of the page
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * First channel id in the page, reading only as far as needed
+     */
+    private static String scanForChannelId(Reader reader) throws IOException {
+        char[] chunk = new char[8192];
+        StringBuilder window = new StringBuilder();
+        int total = 0;
+        int read;
+        while (total < MAX_PAGE_CHARS && (read = reader.read(chunk)) != -1) {
+            total += read;
+            window.append(chunk, 0, read);
+            Matcher matcher = CHANNEL_ID.matcher(window);
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+            // Keep a tail, in case a match straddles two chunks
+            if (window.length() > 128) {
+                window.delete(0, window.length() - 128);
+            }
+        }
+        return null;
+    }
+
+    private void remember(String handle, String channelId) {
+        resolved.put(handle, new Resolution(channelId, System.currentTimeMillis()));
+        save();
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(CACHE_FILE)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(CACHE_FILE, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            logger.warn("Could not read {}", CACHE_FILE.toAbsolutePath(), e);
+            return;
+        }
+        for (String handle : properties.stringPropertyNames()) {
+            // Stored as "<channel id> <resolved at, epoch millis>"
+            String[] value = properties.getProperty(handle).trim().split("\\s+");
+            try {
+                if (value.length == 2 && isChannelId(value[0])) {
+                    resolved.put(handle, new Resolution(value[0], Long.parseLong(value[1])));
+                }
+            } catch (NumberFormatException e) {
+                logger.debug("Skipping bad cache entry for @{}", handle);
+            }
+        }
+        logger.info("Loaded {} YouTube channel ids from {}", resolved.size(), CACHE_FILE);
+    }
+
+    /**
+     * Write the cache through a temporary file, so a crash never leaves it half-written
+     */
+    private synchronized void save() {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Resolution> entry : resolved.entrySet()) {
+            if (!entry.getValue().isExpired()) {
+                properties.setProperty(entry.getKey(), entry.getValue().channelId + " " + entry.getValue().resolvedAt);
+            }
+        }
+        try {
+            Files.createDirectories(CACHE_FILE.getParent());
+            Path temp = Files.createTempFile(CACHE_FILE.getParent(), "youtube-channels", ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    properties.store(writer, "YouTube handle -> channel id, resolved at (epoch millis)");
+                }
+                Files.move(temp, CACHE_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write {}", CACHE_FILE.toAbsolutePath(), e);
+        }
+    }
+
+    private static String normalize(String handle) {
+        String trimmed = handle.trim();
+        // Handles are case-insensitive
+        return (trimmed.startsWith("@") ? trimmed.substring(1) : trimmed).toLowerCase(Locale.ROOT);
+    }
+
+    private static class Resolution {
+        private final String channelId;
+        private final long resolvedAt;
+
+        Resolution(String channelId, long resolvedAt) {
+            this.channelId = channelId;
+            this.resolvedAt = resolvedAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - resolvedAt > TimeUnit.DAYS.toMillis(Constants.YOUTUBE_CHANNEL_TTL_DAYS);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package ui;
 
+import db.AsyncDAO;
 import db.FeedDAO;
 import db.models.Feed;
+import rss.LocalFeedIndex;
 import rss.RSSSearchService;
+import rss.SearchCancellation;
 import utils.Constants;
 import utils.ThemeManager;
 import org.slf4j.Logger;
@@ -14,9 +17,12 @@ import java.awt.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Enhanced Feed Discovery Screen with powerful search capabilities
@@ -26,6 +32,8 @@ public class FeedDiscoveryScreen extends JDialog {
     private static final Logger logger = LoggerFactory.getLogger(FeedDiscoveryScreen.class);
     
     private final FeedDAO feedDAO;
+    private final AsyncDAO asyncDAO;
+    private final LocalFeedIndex localIndex;
     private final int userId;
     private final Runnable onFeedAdded;
     
@@ -34,6 +42,10 @@ public class FeedDiscoveryScreen extends JDialog {
     private JList<String> categoryList;
     private JPanel feedsPanel;
     private JPanel liveSearchResultsPanel;  // Separate panel for live search results
+    private SearchCancellation liveSearchCancellation;  // The live search in flight, if any
+    private int liveSearchResultCount;
+    private final Set<String> liveSearchShownUrls = new HashSet<>();
+    private CompletableFuture<Set<String>> subscribedUrls;  // Every URL the user follows, loaded once per dialog
     private JScrollPane feedsScrollPane;
     private JLabel statusLabel;
     private JTabbedPane mainTabs;
@@ -45,6 +57,8 @@ public class FeedDiscoveryScreen extends JDialog {
     public FeedDiscoveryScreen(Frame parent, int userId, Runnable onFeedAdded) {
         super(parent, "🔍 Discover RSS Feeds", true);
         this.feedDAO = new FeedDAO();
+        this.asyncDAO = AsyncDAO.getInstance();
+        this.localIndex = LocalFeedIndex.getInstance();
         this.userId = userId;
         this.onFeedAdded = onFeedAdded;
         this.currentSearchResults = new ArrayList<>();
@@ -53,6 +67,7 @@ public class FeedDiscoveryScreen extends JDialog {
         applyTheme();
 
         initializeCuratedFeeds();
+        indexCuratedFeeds();
         initializeComponents();
         setupLayout();
         setupEventListeners();
@@ -122,6 +137,20 @@ public class FeedDiscoveryScreen extends JDialog {
         curatedFeeds.put(Constants.CATEGORY_BUSINESS, businessFeeds);
     }
     
+    /**
+     * Make the curated feeds and the sources table searchable as the user types
+     */
+    private void indexCuratedFeeds() {
+        List<RSSSearchService.SearchResult> curated = new ArrayList<>();
+        for (List<CuratedFeed> categoryFeeds : curatedFeeds.values()) {
+            for (CuratedFeed feed : categoryFeeds) {
+                curated.add(toSearchResult(feed));
+            }
+        }
+        localIndex.addCurated(curated);
+        localIndex.refreshSources();
+    }
+    
     private void initializeComponents() {
         // Search field with proper dark theme
         searchField = new JTextField();
@@ -140,6 +169,8 @@ public class FeedDiscoveryScreen extends JDialog {
             public void changedUpdate(javax.swing.event.DocumentEvent e) { scheduleSearch(); }
 
             private void scheduleSearch() {
+                // Local matches right away; the remote search once typing pauses
+                performSearch();
                 searchTimer.restart();
             }
         });
@@ -273,10 +304,12 @@ public class FeedDiscoveryScreen extends JDialog {
         
         List<CuratedFeed> feeds = curatedFeeds.get(category);
         if (feeds != null) {
+            Map<String, JButton> buttonsByUrl = new HashMap<>();
             for (CuratedFeed feed : feeds) {
-                feedsPanel.add(createFeedDiscoveryCard(feed));
+                feedsPanel.add(createFeedDiscoveryCard(feed, buttonsByUrl));
                 feedsPanel.add(Box.createVerticalStrut(10));
             }
+            markSubscribedCards(buttonsByUrl);
             statusLabel.setText(feeds.size() + " curated " + category + " sources available");
         } else {
             JLabel noFeedsLabel = new JLabel("No curated feeds available for " + category);
@@ -289,7 +322,7 @@ public class FeedDiscoveryScreen extends JDialog {
         feedsPanel.repaint();
     }
     
-    private JPanel createFeedDiscoveryCard(CuratedFeed curatedFeed) {
+    private JPanel createFeedDiscoveryCard(CuratedFeed curatedFeed, Map<String, JButton> buttonsByUrl) {
         // Use ThemeManager for proper dark mode card
         JPanel card = ThemeManager.createThemedCard();
         card.setLayout(new BorderLayout());
@@ -321,6 +354,7 @@ public class FeedDiscoveryScreen extends JDialog {
         // Subscribe button using ThemeManager
         JButton subscribeButton = ThemeManager.createAccentButton("➕ Subscribe");
         subscribeButton.addActionListener(e -> addFeedToUserList(curatedFeed, subscribeButton));
+        buttonsByUrl.put(curatedFeed.getUrl(), subscribeButton);
         
         card.add(infoPanel, BorderLayout.CENTER);
         card.add(subscribeButton, BorderLayout.EAST);
@@ -334,17 +368,18 @@ public class FeedDiscoveryScreen extends JDialog {
             return;
         }
         
-        // Convert CuratedFeed to SearchResult format and show the same list selection dialog
-        RSSSearchService.SearchResult searchResult = new RSSSearchService.SearchResult(
+        // Use the same subscription flow as live search results
+        showListSelectionDialog(toSearchResult(curatedFeed), button);
+    }
+    
+    private static RSSSearchService.SearchResult toSearchResult(CuratedFeed curatedFeed) {
+        return new RSSSearchService.SearchResult(
             curatedFeed.getName(),
-            curatedFeed.getUrl(), 
+            curatedFeed.getUrl(),
             curatedFeed.getDescription(),
             curatedFeed.getCategory(),
             "curated"
         );
-        
-        // Use the same subscription flow as live search results
-        showListSelectionDialog(searchResult, button);
     }
     
     private void performSearch() {
@@ -359,20 +394,9 @@ public class FeedDiscoveryScreen extends JDialog {
         }
         
         feedsPanel.removeAll();
-        statusLabel.setText("Searching for '" + searchTerm + "'...");
         
-        List<CuratedFeed> searchResults = new ArrayList<>();
-        
-        // Search across all categories
-        for (List<CuratedFeed> categoryFeeds : curatedFeeds.values()) {
-            for (CuratedFeed feed : categoryFeeds) {
-                if (feed.getName().toLowerCase().contains(searchTerm) ||
-                    feed.getDescription().toLowerCase().contains(searchTerm) ||
-                    feed.getCategory().toLowerCase().contains(searchTerm)) {
-                    searchResults.add(feed);
-                }
-            }
-        }
+        // Curated feeds, known sources and earlier remote results, ranked
+        List<RSSSearchService.SearchResult> searchResults = localIndex.search(searchTerm, Constants.LOCAL_SEARCH_LIMIT);
         
         if (searchResults.isEmpty()) {
             JLabel noResultsLabel = new JLabel("<html><center>No feeds found for '" + searchTerm + "'<br>Try a different search term</center></html>");
@@ -380,10 +404,12 @@ public class FeedDiscoveryScreen extends JDialog {
             noResultsLabel.setForeground(Color.GRAY);
             feedsPanel.add(noResultsLabel);
         } else {
-            for (CuratedFeed feed : searchResults) {
-                feedsPanel.add(createFeedDiscoveryCard(feed));
+            Map<String, JButton> buttonsByUrl = new HashMap<>();
+            for (RSSSearchService.SearchResult result : searchResults) {
+                feedsPanel.add(createSearchResultCard(result, buttonsByUrl));
                 feedsPanel.add(Box.createVerticalStrut(10));
             }
+            markSubscribedCards(buttonsByUrl);
         }
         
         statusLabel.setText("Found " + searchResults.size() + " feeds matching '" + searchTerm + "'");
@@ -433,52 +459,83 @@ public class FeedDiscoveryScreen extends JDialog {
             return;
         }
 
+        // A new query makes the previous search pointless: abort its requests
+        if (liveSearchCancellation != null) {
+            liveSearchCancellation.cancel();
+        }
+        SearchCancellation cancellation = new SearchCancellation();
+        liveSearchCancellation = cancellation;
+
+        liveSearchResultsPanel.removeAll();
+        liveSearchResultsPanel.revalidate();
+        liveSearchResultsPanel.repaint();
+        liveSearchResultCount = 0;
+        liveSearchShownUrls.clear();
         statusLabel.setText("🔍 Searching the internet for RSS feeds...");
 
-        SwingWorker<List<RSSSearchService.SearchResult>, Void> worker = new SwingWorker<>() {
-            @Override
-            protected List<RSSSearchService.SearchResult> doInBackground() throws Exception {
-                return RSSSearchService.searchFeeds(searchTerm);
-            }
+        // What we already know shows up before any remote provider answers
+        appendLiveSearchResults(localIndex.search(searchTerm, Constants.LOCAL_SEARCH_LIMIT));
 
-            @Override
-            protected void done() {
-                try {
-                    List<RSSSearchService.SearchResult> results = get();
-                    displayLiveSearchResults(results);
-                } catch (Exception e) {
-                    statusLabel.setText("Search failed: " + e.getMessage());
-                    e.printStackTrace();
+        RSSSearchService.searchFeedsStreaming(searchTerm, cancellation,
+                results -> SwingUtilities.invokeLater(() -> {
+                    if (!cancellation.isCancelled()) {
+                        appendLiveSearchResults(results);
+                    }
+                }))
+            .whenCompleteAsync((results, error) -> {
+                if (cancellation.isCancelled()) {
+                    return;
                 }
-            }
-        };
-        worker.execute();
+                if (error != null) {
+                    logger.warn("Live search failed for '{}'", searchTerm, error);
+                    statusLabel.setText("Search failed: " + error.getMessage());
+                } else if (liveSearchResultCount == 0) {
+                    showNoLiveSearchResults();
+                } else {
+                    statusLabel.setText("✅ Found " + liveSearchResultCount + " RSS feeds");
+                }
+            }, SwingUtilities::invokeLater);
     }
 
-    private void displayLiveSearchResults(List<RSSSearchService.SearchResult> results) {
-        liveSearchResultsPanel.removeAll();
-
-        if (results.isEmpty()) {
-            JLabel noResultsLabel = new JLabel("<html><center>" +
-                "<h3 style='color: " + toHexColor(ThemeManager.getTextPrimaryColor()) + ";'>No RSS feeds found</h3>" +
-                "<p style='color: " + toHexColor(ThemeManager.getTextSecondaryColor()) + ";'>Try a different website or search term</p>" +
-                "</center></html>");
-            noResultsLabel.setHorizontalAlignment(SwingConstants.CENTER);
-            noResultsLabel.setForeground(ThemeManager.getTextSecondaryColor());
-            liveSearchResultsPanel.add(noResultsLabel);
-        } else {
-            for (RSSSearchService.SearchResult result : results) {
-                liveSearchResultsPanel.add(createSearchResultCard(result));
+    /**
+     * Add the results of one search provider below those already shown,
+     * skipping feeds that are already on screen
+     */
+    private void appendLiveSearchResults(List<RSSSearchService.SearchResult> results) {
+        Map<String, JButton> buttonsByUrl = new HashMap<>();
+        for (RSSSearchService.SearchResult result : results) {
+            if (liveSearchShownUrls.add(result.getUrl())) {
+                liveSearchResultsPanel.add(createSearchResultCard(result, buttonsByUrl));
                 liveSearchResultsPanel.add(Box.createVerticalStrut(10));
             }
         }
+        if (buttonsByUrl.isEmpty()) {
+            return;
+        }
+        markSubscribedCards(buttonsByUrl);
+
+        liveSearchResultCount += buttonsByUrl.size();
+        statusLabel.setText("🔍 Found " + liveSearchResultCount + " RSS feeds so far...");
+        liveSearchResultsPanel.revalidate();
+        liveSearchResultsPanel.repaint();
+    }
+
+    private void showNoLiveSearchResults() {
+        liveSearchResultsPanel.removeAll();
+        JLabel noResultsLabel = new JLabel("<html><center>" +
+            "<h3 style='color: " + toHexColor(ThemeManager.getTextPrimaryColor()) + ";'>No RSS feeds found</h3>" +
+            "<p style='color: " + toHexColor(ThemeManager.getTextSecondaryColor()) + ";'>Try a different website or search term</p>" +
+            "</center></html>");
+        noResultsLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        noResultsLabel.setForeground(ThemeManager.getTextSecondaryColor());
+        liveSearchResultsPanel.add(noResultsLabel);
 
-        statusLabel.setText("✅ Found " + results.size() + " RSS feeds");
+        statusLabel.setText("✅ Found 0 RSS feeds");
         liveSearchResultsPanel.revalidate();
         liveSearchResultsPanel.repaint();
     }
 
-    private JPanel createSearchResultCard(RSSSearchService.SearchResult result) {
+    private JPanel createSearchResultCard(RSSSearchService.SearchResult result, Map<String, JButton> buttonsByUrl) {
         JPanel card = ThemeManager.createThemedCard();
         card.setLayout(new BorderLayout());
         card.setMaximumSize(new Dimension(Integer.MAX_VALUE, 120));
@@ -515,6 +572,7 @@ public class FeedDiscoveryScreen extends JDialog {
         // Subscribe button
         JButton subscribeButton = ThemeManager.createAccentButton("➕ Subscribe");
         subscribeButton.addActionListener(e -> subscribeToSearchResult(result, subscribeButton));
+        buttonsByUrl.put(result.getUrl(), subscribeButton);
 
         card.add(infoPanel, BorderLayout.CENTER);
         card.add(subscribeButton, BorderLayout.EAST);
@@ -522,6 +580,64 @@ public class FeedDiscoveryScreen extends JDialog {
         return card;
     }
 
+    /**
+     * Mark the cards whose feed the user already follows. The user's subscribed
+     * URLs are loaded once per dialog, so searching and browsing categories
+     * check cards against memory instead of the database.
+     */
+    private void markSubscribedCards(Map<String, JButton> buttonsByUrl) {
+        if (userId <= 0 || buttonsByUrl.isEmpty()) {
+            return;
+        }
+
+        CompletableFuture<Set<String>> load = loadSubscribedUrls();
+        load.whenCompleteAsync((urls, error) -> {
+            if (error != null) {
+                logger.warn("Could not load subscription state for discovery cards", error);
+                // Try the database again for the next batch of cards
+                if (subscribedUrls == load) {
+                    subscribedUrls = null;
+                }
+                return;
+            }
+            buttonsByUrl.forEach((url, button) -> {
+                if (urls.contains(url)) {
+                    button.setEnabled(false);
+                    button.setText("✅ Subscribed");
+                    button.setBackground(ThemeManager.getCardColor());
+                    button.setForeground(ThemeManager.getTextSecondaryColor());
+                }
+            });
+        }, SwingUtilities::invokeLater);
+    }
+
+    /**
+     * The user's subscribed URLs, from the database the first time. Only touched on the EDT.
+     */
+    private CompletableFuture<Set<String>> loadSubscribedUrls() {
+        if (subscribedUrls == null) {
+            subscribedUrls = asyncDAO.feeds(dao -> dao.getSubscribedFeedUrls(userId));
+        }
+        return subscribedUrls;
+    }
+
+    /**
+     * Remember a new subscription, so cards shown later mark it without a query
+     */
+    private void rememberSubscribed(String url) {
+        if (subscribedUrls != null) {
+            subscribedUrls.thenAcceptAsync(urls -> urls.add(url), SwingUtilities::invokeLater);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (liveSearchCancellation != null) {
+            liveSearchCancellation.cancel();
+        }
+        super.dispose();
+    }
+
     private void subscribeToSearchResult(RSSSearchService.SearchResult result, JButton button) {
         // Show list selection dialog first
         showListSelectionDialog(result, button);
@@ -533,6 +649,25 @@ public class FeedDiscoveryScreen extends JDialog {
             return;
         }
         
+        // Get user's lists before opening the (modal) dialog
+        asyncDAO.feeds(dao -> {
+            List<FeedDAO.UserList> userLists = dao.getUserLists(userId);
+            if (userLists.isEmpty()) {
+                // Create default Home list if none exist
+                dao.createList(userId, "Home").ifPresent(userLists::add);
+            }
+            return userLists;
+        }).whenCompleteAsync((userLists, error) -> {
+            if (error != null) {
+                statusLabel.setText("Could not load your lists: " + error.getMessage());
+                return;
+            }
+            openListSelectionDialog(result, originalButton, userLists);
+        }, SwingUtilities::invokeLater);
+    }
+    
+    private void openListSelectionDialog(RSSSearchService.SearchResult result, JButton originalButton,
+                                         List<FeedDAO.UserList> userLists) {
         // Create dialog
         JDialog listDialog = new JDialog(this, "Subscribe to Feed", true);
         listDialog.setSize(400, 300);
@@ -557,16 +692,6 @@ public class FeedDiscoveryScreen extends JDialog {
         listLabel.setForeground(ThemeManager.getTextPrimaryColor());
         listLabel.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 14));
         
-        // Get user's lists
-        java.util.List<FeedDAO.UserList> userLists = feedDAO.getUserLists(userId);
-        if (userLists.isEmpty()) {
-            // Create default Home list if none exist
-            Optional<FeedDAO.UserList> homeList = feedDAO.createList(userId, "Home");
-            if (homeList.isPresent()) {
-                userLists.add(homeList.get());
-            }
-        }
-        
         DefaultListModel<FeedDAO.UserList> listModel = new DefaultListModel<>();
         for (FeedDAO.UserList list : userLists) {
             listModel.addElement(list);
@@ -609,11 +734,18 @@ public class FeedDiscoveryScreen extends JDialog {
                 "Enter new list name:", "Create New List", 
                 JOptionPane.QUESTION_MESSAGE);
             if (newListName != null && !newListName.trim().isEmpty()) {
-                Optional<FeedDAO.UserList> newList = feedDAO.createList(userId, newListName.trim());
-                if (newList.isPresent()) {
-                    listModel.addElement(newList.get());
-                    listsList.setSelectedValue(newList.get(), true);
-                }
+                newListBtn.setEnabled(false);
+                asyncDAO.feeds(dao -> dao.createList(userId, newListName.trim()))
+                    .whenCompleteAsync((newList, error) -> {
+                        newListBtn.setEnabled(true);
+                        if (error == null && newList.isPresent()) {
+                            listModel.addElement(newList.get());
+                            listsList.setSelectedValue(newList.get(), true);
+                        } else {
+                            JOptionPane.showMessageDialog(listDialog, "Could not create the list.",
+                                "Create New List", JOptionPane.ERROR_MESSAGE);
+                        }
+                    }, SwingUtilities::invokeLater);
             }
         });
         
@@ -689,6 +821,7 @@ public class FeedDiscoveryScreen extends JDialog {
                         button.setBackground(ThemeManager.getCardColor());
                         button.setForeground(ThemeManager.getTextPrimaryColor());
                         statusLabel.setText("Successfully subscribed to " + result.getTitle() + " in " + selectedList.getName());
+                        rememberSubscribed(result.getUrl());
 
                         // Notify parent that a feed was added
                         if (onFeedAdded != null) {
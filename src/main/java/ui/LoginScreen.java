@@ -181,11 +181,14 @@ public class LoginScreen extends JFrame {
         statusLabel.setText("Authenticating...");
         statusLabel.setForeground(Color.BLUE);
 
+        // Read on the EDT, not in the worker
+        boolean rememberMe = rememberMeCheckbox.isSelected();
+
         // Perform login in background thread
         SwingWorker<AuthResult, Void> worker = new SwingWorker<AuthResult, Void>() {
             @Override
             protected AuthResult doInBackground() throws Exception {
-                return authController.loginUser(username, password);
+                return authController.loginUser(username, password, rememberMe);
             }
 
             @Override
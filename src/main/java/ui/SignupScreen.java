@@ -10,6 +10,7 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.concurrent.CompletableFuture;
 
 public class SignupScreen extends JFrame {
     private final AuthController authController;
@@ -21,6 +22,9 @@ public class SignupScreen extends JFrame {
     private JButton backToLoginButton;
     private JLabel statusLabel;
     private JLabel passwordStrengthLabel;
+    private Timer availabilityTimer;
+    // The "already taken" message we put in the status label, cleared once it is fixed
+    private String availabilityMessage;
 
     public SignupScreen() {
         this.authController = AuthController.getInstance();
@@ -185,6 +189,20 @@ public class SignupScreen extends JFrame {
             }
         });
         
+        // Check username/email availability once typing pauses, not on every keystroke
+        availabilityTimer = new Timer(400, e -> checkAvailability());
+        availabilityTimer.setRepeats(false);
+        javax.swing.event.DocumentListener availabilityListener = new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) { availabilityTimer.restart(); }
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) { availabilityTimer.restart(); }
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) { availabilityTimer.restart(); }
+        };
+        usernameField.getDocument().addDocumentListener(availabilityListener);
+        emailField.getDocument().addDocumentListener(availabilityListener);
+
         confirmPasswordField.addActionListener(e -> performSignup());
         
         // Add Enter key support for all fields
@@ -193,6 +211,35 @@ public class SignupScreen extends JFrame {
         passwordField.addActionListener(e -> confirmPasswordField.requestFocus());
     }
 
+    private void checkAvailability() {
+        String username = usernameField.getText().trim();
+        String email = emailField.getText().trim();
+
+        // Only probe values that could be registered at all
+        CompletableFuture<Boolean> usernameTaken = username.length() >= Constants.MIN_USERNAME_LENGTH
+            && username.matches(Constants.USERNAME_PATTERN)
+            ? authController.isUsernameTaken(username) : CompletableFuture.completedFuture(false);
+        CompletableFuture<Boolean> emailTaken = email.matches(Constants.EMAIL_PATTERN)
+            ? authController.isEmailTaken(email) : CompletableFuture.completedFuture(false);
+
+        usernameTaken.thenCombine(emailTaken, (nameTaken, mailTaken) ->
+                nameTaken ? "Username is already taken" : mailTaken ? "Email is already registered" : null)
+            .whenCompleteAsync((message, error) -> {
+                // Only a hint: registration itself reports conflicts
+                if (error != null || !username.equals(usernameField.getText().trim())
+                        || !email.equals(emailField.getText().trim())) {
+                    return;
+                }
+                if (message != null) {
+                    showError(message);
+                    availabilityMessage = message;
+                } else if (availabilityMessage != null && availabilityMessage.equals(statusLabel.getText())) {
+                    statusLabel.setText(" ");
+                    availabilityMessage = null;
+                }
+            }, SwingUtilities::invokeLater);
+    }
+
     private void updatePasswordStrength() {
         String password = new String(passwordField.getPassword());
         String strength = Validator.getPasswordStrength(password);
@@ -1,11 +1,16 @@
 package ui;
 
 import auth.AuthController;
+import db.AsyncDAO;
 import db.models.User;
 import db.models.Article;
 import db.models.Feed;
 import db.FeedDAO;
+import db.FeedItemListener;
+import db.TimelineCache;
+import db.UnreadCounters;
 import rss.FeedParser;
+import rss.OpmlService;
 import rss.RSSSearchService;
 import ui.components.ArticleDialog;
 import utils.Constants;
@@ -16,15 +21,28 @@ import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.time.format.DateTimeFormatter;
 
 public class StreamlinedMainWindow extends JFrame {
     private final AuthController authController;
     private final FeedParser feedParser;
     private final FeedDAO feedDAO;
+    private final AsyncDAO asyncDAO;
+    private final TimelineCache timelineCache;
     
     private JPanel feedPanel;
     private JScrollPane feedScrollPane;
@@ -33,15 +51,23 @@ public class StreamlinedMainWindow extends JFrame {
     private DefaultListModel<String> userListsModel;
     private JButton refreshButton;
     private JButton discoverButton;
+    private JButton importOpmlButton;
+    private JButton exportOpmlButton;
     private JButton settingsButton;
     private JButton logoutButton;
     private JButton themeToggleButton;
     private JLabel statusLabel;
     private JLabel userLabel;
     private JComboBox<String> viewModeComboBox;
+    private JTextField articleSearchField;
     
     // Current data
     private List<Article> currentArticles;
+    private List<FeedDAO.UserList> sidebarLists = new ArrayList<>();
+    private FeedItemListener feedItemListener;
+    private volatile int latestFeedId; // Highest stored feed_id in the timeline, for merging pushed items
+    private boolean showingSearchResults;
+    private boolean showingEmptyTimeline; // The feed panel holds an empty state, not cards
     private User currentUser;
     private String selectedList = Constants.DEFAULT_LIST_HOME;
     private String currentViewMode = Constants.VIEW_MODE_MAGAZINE; // Default to magazine view
@@ -50,6 +76,8 @@ public class StreamlinedMainWindow extends JFrame {
         this.authController = AuthController.getInstance();
         this.feedParser = new FeedParser();
         this.feedDAO = new FeedDAO();
+        this.asyncDAO = AsyncDAO.getInstance();
+        this.timelineCache = TimelineCache.getInstance();
         this.currentUser = authController.getCurrentUser();
         this.currentArticles = new ArrayList<>();
         
@@ -60,6 +88,7 @@ public class StreamlinedMainWindow extends JFrame {
         setupLayout();
         setupEventHandlers();
         checkForEmptyState();
+        startFeedItemListener();
         
         setTitle(Constants.APP_NAME + " - RSS Feed Reader");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -112,6 +141,11 @@ public class StreamlinedMainWindow extends JFrame {
         discoverButton.setFocusable(true);
         discoverButton.setEnabled(true);
         
+        importOpmlButton = ThemeManager.createThemedButton("📥 Import OPML");
+        importOpmlButton.setToolTipText("Subscribe to every feed in an OPML file from another reader");
+        exportOpmlButton = ThemeManager.createThemedButton("📤 Export OPML");
+        exportOpmlButton.setToolTipText("Save your subscriptions as an OPML file");
+        
         JButton createListButton = ThemeManager.createThemedButton("➕ Create New List");
         createListButton.setFocusable(true);
         createListButton.setEnabled(true);
@@ -140,6 +174,12 @@ public class StreamlinedMainWindow extends JFrame {
         feedScrollPane.setBackground(ThemeManager.getBackgroundColor());
         feedScrollPane.getViewport().setBackground(ThemeManager.getBackgroundColor());
 
+        // Article search bar above the feed
+        articleSearchField = new JTextField();
+        articleSearchField.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 14));
+        articleSearchField.setToolTipText("Search your subscribed articles - press Enter (empty to go back)");
+        ThemeManager.applyTheme(articleSearchField);
+
         // Status bar with proper theming
         statusLabel = new JLabel("Welcome to " + Constants.APP_NAME + "!");
         statusLabel.setBorder(new EmptyBorder(8, 15, 8, 15));
@@ -187,6 +227,10 @@ public class StreamlinedMainWindow extends JFrame {
         buttonsPanel.add(refreshButton);
         buttonsPanel.add(Box.createVerticalStrut(8));
         buttonsPanel.add(discoverButton);
+        buttonsPanel.add(Box.createVerticalStrut(8));
+        buttonsPanel.add(importOpmlButton);
+        buttonsPanel.add(Box.createVerticalStrut(8));
+        buttonsPanel.add(exportOpmlButton);
         buttonsPanel.add(Box.createVerticalStrut(15));
         buttonsPanel.add(settingsButton);
         buttonsPanel.add(Box.createVerticalStrut(8));
@@ -203,8 +247,23 @@ public class StreamlinedMainWindow extends JFrame {
         
         sidePanel.add(bottomPanel, BorderLayout.SOUTH);
         
+        // Search bar + feed
+        JPanel searchBar = new JPanel(new BorderLayout(8, 0));
+        searchBar.setBackground(ThemeManager.getBackgroundColor());
+        searchBar.setBorder(new EmptyBorder(10, 15, 10, 15));
+        JLabel searchLabel = new JLabel("🔎 Search articles");
+        searchLabel.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 12));
+        searchLabel.setForeground(ThemeManager.getTextPrimaryColor());
+        searchBar.add(searchLabel, BorderLayout.WEST);
+        searchBar.add(articleSearchField, BorderLayout.CENTER);
+
+        JPanel centerPanel = new JPanel(new BorderLayout());
+        centerPanel.setBackground(ThemeManager.getBackgroundColor());
+        centerPanel.add(searchBar, BorderLayout.NORTH);
+        centerPanel.add(feedScrollPane, BorderLayout.CENTER);
+        
         add(sidePanel, BorderLayout.WEST);
-        add(feedScrollPane, BorderLayout.CENTER);
+        add(centerPanel, BorderLayout.CENTER);
         add(statusLabel, BorderLayout.SOUTH);
     }
     
@@ -229,30 +288,41 @@ public class StreamlinedMainWindow extends JFrame {
             }
         });
         
+        articleSearchField.addActionListener(e -> searchArticles(articleSearchField.getText()));
         refreshButton.addActionListener(e -> refreshFeeds());
         discoverButton.addActionListener(e -> openFeedDiscovery());
+        importOpmlButton.addActionListener(e -> importOpml());
+        exportOpmlButton.addActionListener(e -> exportOpml());
         settingsButton.addActionListener(e -> showSettingsDialog());
         logoutButton.addActionListener(e -> performLogout());
         themeToggleButton.addActionListener(e -> toggleTheme());
     }
     
     private String extractListName(String listItem) {
-        return listItem.substring(2).trim();
+        // Strip the icon and the "(subscriptions) • N unread" decorations
+        return listItem.substring(2).trim().replaceFirst("\\s\\(\\d+\\)(\\s•\\s\\d+ unread)?$", "");
     }
     
     private void checkForEmptyState() {
-        if (currentUser != null) {
-            List<Feed> userFeeds = feedDAO.getUserFeeds(currentUser.getId());
-            if (userFeeds.isEmpty()) {
-                showEmptyState();
-                return;
-            }
+        if (currentUser == null) {
+            loadInitialData();
+            return;
         }
-        loadInitialData();
+        asyncDAO.feeds(dao -> dao.getUserFeeds(currentUser.getId()))
+            .whenCompleteAsync((userFeeds, error) -> {
+                if (error != null) {
+                    statusLabel.setText("Could not load your feeds: " + error.getMessage());
+                } else if (userFeeds.isEmpty()) {
+                    showEmptyState();
+                } else {
+                    loadInitialData();
+                }
+            }, SwingUtilities::invokeLater);
     }
     
     private void showEmptyState() {
         feedPanel.removeAll();
+        showingEmptyTimeline = true;
         
         JPanel emptyPanel = ThemeManager.createThemedPanel();
         emptyPanel.setLayout(new BoxLayout(emptyPanel, BoxLayout.Y_AXIS));
@@ -284,46 +354,53 @@ public class StreamlinedMainWindow extends JFrame {
         statusLabel.setText("No feeds subscribed yet - discover some great sources!");
     }
     
+    /**
+     * Show the stored timeline straight away (from the timeline cache when it
+     * has the page), then fetch the feeds in the background. Items they bring
+     * reach the timeline through the feed item listener.
+     */
     private void loadInitialData() {
         if (currentUser == null) {
             loadSampleFeedsForDemo();
             return;
         }
         
-        statusLabel.setText("Loading your feeds...");
-        
+        statusLabel.setText("Loading your timeline...");
+        int userId = currentUser.getId();
+        asyncDAO.supply(() -> timelineCache.get(userId, FeedDAO.TIMELINE_ALL, null, Constants.DEFAULT_ARTICLES_PER_PAGE),
+                Constants.DB_QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .whenCompleteAsync((page, error) -> {
+                if (error != null) {
+                    statusLabel.setText("Error loading articles: " + error.getMessage());
+                } else {
+                    currentArticles = new ArrayList<>(page.getArticles());
+                    latestFeedId = currentArticles.stream().mapToInt(Article::getId).max().orElse(0);
+                    loadArticlesForList(selectedList);
+                }
+                fetchSubscribedFeeds(null);
+            }, SwingUtilities::invokeLater);
+    }
+    
+    /**
+     * Fetch every subscribed feed into the database, one after another, off the EDT
+     * @param whenDone Runs on the EDT once all feeds were fetched; may be null
+     */
+    private void fetchSubscribedFeeds(Runnable whenDone) {
+        int userId = currentUser.getId();
         SwingWorker<Void, String> worker = new SwingWorker<Void, String>() {
             @Override
             protected Void doInBackground() throws Exception {
-                List<Feed> userFeeds = feedDAO.getUserFeeds(currentUser.getId());
-                
-                if (userFeeds.isEmpty()) {
-                    publish("No feeds found");
-                    return null;
-                }
-                
-                currentArticles.clear();
-                
-                for (Feed feed : userFeeds) {
-                    publish("Loading " + feed.getTitle() + "...");
+                // Running clients, this one included, are notified of new items
+                for (Feed feed : feedDAO.getUserFeeds(userId)) {
+                    publish("Updating " + feed.getTitle() + "...");
                     
                     try {
-                        FeedParser.ParseResult result = feedParser.parseFeed(feed.getUrl());
-                        if (result.isSuccess() && result.getArticles() != null) {
-                            for (Article article : result.getArticles()) {
-                                article.setFeedId(feed.getId());
-                                currentArticles.add(article);
-                                if (currentArticles.size() >= 50) break;
-                            }
-                        }
+                        feedParser.parseAndSaveFeed(feed.getId(), feed.getUrl());
                     } catch (Exception e) {
                         System.err.println("Error loading feed: " + e.getMessage());
                         e.printStackTrace();
                     }
-                    
-                    if (currentArticles.size() >= 50) break;
                 }
-                
                 return null;
             }
             
@@ -336,17 +413,156 @@ public class StreamlinedMainWindow extends JFrame {
             
             @Override
             protected void done() {
-                if (currentArticles.isEmpty()) {
-                    showEmptyState();
-                } else {
-                    statusLabel.setText("Loaded " + currentArticles.size() + " articles");
-                    loadArticlesForList(selectedList);
+                statusLabel.setText("Feeds up to date");
+                if (whenDone != null) {
+                    whenDone.run();
                 }
             }
         };
         worker.execute();
     }
     
+    /**
+     * Listen for items stored by any client (including this one) and merge them in
+     */
+    private void startFeedItemListener() {
+        if (currentUser == null) {
+            return;
+        }
+        int userId = currentUser.getId();
+        // Highest feed_id fetched so far; only touched on the listener thread
+        int[] fetchedUpTo = {0};
+        feedItemListener = new FeedItemListener(newItems -> {
+            // Runs on the listener thread. Only sources the user follows matter
+            Map<Integer, Set<Integer>> listSources = timelineCache.listSources(userId);
+            Set<Integer> sourceIds = new HashSet<>();
+            listSources.values().forEach(sourceIds::addAll);
+            sourceIds.retainAll(newItems.getSourceIds());
+            if (sourceIds.isEmpty()) {
+                return;
+            }
+            // Items stored by this process already evicted their pages when they were inserted
+            if (!newItems.isLocal()) {
+                timelineCache.sourcesUpdated(sourceIds);
+            }
+
+            // Rows an earlier notification fetched are neither shown nor counted again
+            int since = Math.max(fetchedUpTo[0], latestFeedId);
+            List<Article> articles = feedDAO.getArticlesSince(userId, sourceIds, since, Constants.DEFAULT_ARTICLES_PER_PAGE);
+            for (Article article : articles) {
+                fetchedUpTo[0] = Math.max(fetchedUpTo[0], article.getId());
+            }
+            if (!newItems.isLocal()) {
+                countStoredElsewhere(userId, articles, since);
+            }
+            SwingUtilities.invokeLater(() -> mergeNewArticles(articles, listSources));
+        });
+        feedItemListener.start();
+    }
+    
+    /**
+     * Add items another client stored to the unread counters; items stored by
+     * this process were counted when they were inserted. Recounts only when
+     * the rows cannot be counted: before the timeline's high-water mark is
+     * known, or when more arrived than were fetched.
+     */
+    private void countStoredElsewhere(int userId, List<Article> articles, int since) {
+        UnreadCounters counters = UnreadCounters.getInstance();
+        if (since == 0 || articles.size() >= Constants.DEFAULT_ARTICLES_PER_PAGE) {
+            counters.rebuild(userId);
+            return;
+        }
+        Map<Integer, Integer> unreadBySource = new HashMap<>();
+        for (Article article : articles) {
+            if (!article.isRead()) {
+                unreadBySource.merge(article.getFeedId(), 1, Integer::sum);
+            }
+        }
+        unreadBySource.forEach((sourceId, count) -> counters.itemsStored(userId, sourceId, count));
+    }
+    
+    /**
+     * Put pushed articles at the top of the open timeline. The pages already
+     * loaded and the scroll position stay as they are.
+     */
+    private void mergeNewArticles(List<Article> newArticles, Map<Integer, Set<Integer>> listSources) {
+        Set<Integer> knownIds = new HashSet<>();
+        for (Article article : currentArticles) {
+            knownIds.add(article.getId());
+        }
+        
+        List<Article> added = new ArrayList<>();
+        for (Article article : newArticles) {
+            if (knownIds.add(article.getId())) {
+                added.add(article);
+                latestFeedId = Math.max(latestFeedId, article.getId());
+            }
+        }
+        // Counters may have been rebuilt even if nothing new is shown
+        refreshUnreadCounts();
+        if (added.isEmpty()) {
+            return;
+        }
+        
+        currentArticles.addAll(0, added);
+        statusLabel.setText(added.size() + " new article" + (added.size() == 1 ? "" : "s"));
+        if (showingSearchResults || currentViewMode.equals(Constants.VIEW_MODE_REEL)) {
+            return;
+        }
+        if (showingEmptyTimeline) {
+            // Nothing to keep in place
+            loadArticlesForList(selectedList);
+            return;
+        }
+        
+        int listId = timelineIdFor(selectedList);
+        Set<Integer> shownSources = new HashSet<>();
+        if (listId == FeedDAO.TIMELINE_ALL) {
+            listSources.values().forEach(shownSources::addAll);
+        } else if (listId != FeedDAO.TIMELINE_SAVED) {
+            shownSources.addAll(listSources.getOrDefault(listId, Set.of()));
+        }
+        List<Article> shown = added.stream()
+            .filter(article -> shownSources.contains(article.getFeedId()))
+            .toList();
+        if (!shown.isEmpty()) {
+            insertArticleCardsAtTop(shown);
+        }
+    }
+    
+    private void insertArticleCardsAtTop(List<Article> articles) {
+        JScrollBar scrollBar = feedScrollPane.getVerticalScrollBar();
+        boolean atTop = scrollBar.getValue() == 0;
+        int heightBefore = feedPanel.getPreferredSize().height;
+        
+        int index = 0;
+        for (Article article : articles) {
+            feedPanel.add(createArticleCard(article), index++);
+            feedPanel.add(Box.createVerticalStrut(12), index++);
+        }
+        int insertedHeight = feedPanel.getPreferredSize().height - heightBefore;
+        feedPanel.revalidate();
+        feedPanel.repaint();
+        
+        if (!atTop) {
+            // Keep the card being read where it is; the new ones are above it
+            SwingUtilities.invokeLater(() -> scrollBar.setValue(scrollBar.getValue() + insertedHeight));
+        }
+    }
+    
+    private void stopFeedItemListener() {
+        if (feedItemListener != null) {
+            feedItemListener.stop();
+            feedItemListener = null;
+        }
+    }
+    
+    @Override
+    public void dispose() {
+        stopFeedItemListener();
+        super.dispose();
+    }
+    
     private void loadSampleFeedsForDemo() {
         statusLabel.setText("Loading sample feeds...");
         
@@ -399,32 +615,169 @@ public class StreamlinedMainWindow extends JFrame {
     }
     
     private void loadArticlesForList(String listName) {
-        feedPanel.removeAll();
+        showingSearchResults = false;
+        if (currentUser == null) {
+            renderTimelinePage(listName, FeedDAO.TIMELINE_ALL, new FeedDAO.TimelinePage(filterArticlesByList(listName), null), true);
+            return;
+        }
         
-        List<Article> filteredArticles = filterArticlesByList(listName);
+        // Recently viewed lists come straight from the timeline cache
+        int listId = timelineIdFor(listName);
+        FeedDAO.TimelinePage cached = timelineCache.getIfPresent(currentUser.getId(), listId, null,
+            Constants.DEFAULT_ARTICLES_PER_PAGE);
+        if (cached != null) {
+            renderTimelinePage(listName, listId, cached, true);
+            return;
+        }
+        statusLabel.setText("Loading " + listName + "...");
+        fetchTimelinePage(listName, listId, null);
+    }
+    
+    /**
+     * Home shows every subscription and Saved the user's bookmarks; other lists map to their id
+     */
+    private int timelineIdFor(String listName) {
+        if (listName.equals(Constants.DEFAULT_LIST_HOME)) {
+            return FeedDAO.TIMELINE_ALL;
+        }
+        if (listName.equals(Constants.DEFAULT_LIST_SAVED)) {
+            return FeedDAO.TIMELINE_SAVED;
+        }
+        for (FeedDAO.UserList list : sidebarLists) {
+            if (list.getName().equals(listName)) {
+                return list.getId();
+            }
+        }
+        return FeedDAO.TIMELINE_ALL;
+    }
+    
+    private void fetchTimelinePage(String listName, int listId, FeedDAO.TimelineCursor cursor) {
+        int userId = currentUser.getId();
+        asyncDAO.supply(() -> timelineCache.get(userId, listId, cursor, Constants.DEFAULT_ARTICLES_PER_PAGE),
+                Constants.DB_QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .whenCompleteAsync((page, error) -> {
+                // The user may have moved on to another list or a search meanwhile
+                if (showingSearchResults || !listName.equals(selectedList)) {
+                    return;
+                }
+                if (error != null) {
+                    statusLabel.setText("Error loading " + listName + ": " + error.getMessage());
+                } else {
+                    renderTimelinePage(listName, listId, page, cursor == null);
+                }
+            }, SwingUtilities::invokeLater);
+    }
+    
+    private void renderTimelinePage(String listName, int listId, FeedDAO.TimelinePage page, boolean firstPage) {
+        if (firstPage) {
+            feedPanel.removeAll();
+        } else if (feedPanel.getComponentCount() > 0) {
+            // Drop the previous "Load more" button before appending
+            feedPanel.remove(feedPanel.getComponentCount() - 1);
+        }
         
-        if (filteredArticles.isEmpty()) {
+        List<Article> articles = page.getArticles();
+        if (firstPage) {
+            showingEmptyTimeline = articles.isEmpty();
+        }
+        if (firstPage && articles.isEmpty()) {
             showEmptyListState(listName);
         } else {
             switch (currentViewMode) {
                 case Constants.VIEW_MODE_MAGAZINE:
-                    renderMagazineView(filteredArticles);
+                    renderMagazineView(articles);
                     break;
                 case Constants.VIEW_MODE_REEL:
-                    renderReelView(filteredArticles);
+                    renderReelView(articles);
                     break;
                 default:
-                    renderMagazineView(filteredArticles);
+                    renderMagazineView(articles);
             }
         }
         
+        if (page.hasMore() && !currentViewMode.equals(Constants.VIEW_MODE_REEL)) {
+            JButton loadMoreButton = ThemeManager.createThemedButton("⬇️ Load more articles");
+            loadMoreButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+            loadMoreButton.addActionListener(e -> {
+                loadMoreButton.setEnabled(false);
+                fetchTimelinePage(listName, listId, page.getNext());
+            });
+            feedPanel.add(loadMoreButton);
+        }
+        
         feedPanel.revalidate();
         feedPanel.repaint();
-        scrollToTop();
-        
-        statusLabel.setText("Showing " + filteredArticles.size() + " articles in " + listName);
+        if (firstPage) {
+            scrollToTop();
+            statusLabel.setText("Showing " + articles.size() + " articles in " + listName);
+        } else {
+            statusLabel.setText("Loaded " + articles.size() + " more articles in " + listName);
+        }
     }
     
+    private void searchArticles(String query) {
+        String trimmed = query.trim();
+        if (trimmed.isEmpty()) {
+            loadArticlesForList(selectedList);
+            return;
+        }
+        if (currentUser == null) {
+            statusLabel.setText("Log in to search your articles");
+            return;
+        }
+
+        statusLabel.setText("Searching articles for '" + trimmed + "'...");
+        showingSearchResults = true;
+        feedPanel.removeAll();
+        fetchSearchPage(trimmed, null);
+    }
+
+    private void fetchSearchPage(String query, FeedDAO.SearchCursor cursor) {
+        int userId = currentUser.getId();
+        asyncDAO.feeds(dao -> dao.searchArticles(userId, query, cursor))
+            .whenCompleteAsync((page, error) -> {
+                if (error != null) {
+                    statusLabel.setText("Search failed: " + error.getMessage());
+                } else {
+                    appendSearchResults(query, page, cursor == null);
+                }
+            }, SwingUtilities::invokeLater);
+    }
+
+    private void appendSearchResults(String query, FeedDAO.SearchPage page, boolean firstPage) {
+        // Drop the previous "Load more" button before appending
+        if (!firstPage && feedPanel.getComponentCount() > 0) {
+            feedPanel.remove(feedPanel.getComponentCount() - 1);
+        }
+
+        if (firstPage && page.getArticles().isEmpty()) {
+            JLabel noResultsLabel = new JLabel("<html><center><h2>No articles match '" + query + "'</h2>" +
+                "<p>Try different words, or press Enter on an empty search to go back</p></center></html>");
+            noResultsLabel.setHorizontalAlignment(SwingConstants.CENTER);
+            noResultsLabel.setForeground(ThemeManager.getTextSecondaryColor());
+            feedPanel.add(noResultsLabel);
+        } else {
+            renderMagazineView(page.getArticles());
+        }
+
+        if (page.hasMore()) {
+            JButton loadMoreButton = ThemeManager.createThemedButton("⬇️ Load more results");
+            loadMoreButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+            loadMoreButton.addActionListener(e -> {
+                loadMoreButton.setEnabled(false);
+                fetchSearchPage(query, page.getNext());
+            });
+            feedPanel.add(loadMoreButton);
+        }
+
+        feedPanel.revalidate();
+        feedPanel.repaint();
+        if (firstPage) {
+            scrollToTop();
+        }
+        statusLabel.setText("Search results for '" + query + "'");
+    }
+
     private List<Article> filterArticlesByList(String listName) {
         if (listName.equals(Constants.DEFAULT_LIST_HOME)) {
             return new ArrayList<>(currentArticles);
@@ -600,14 +953,7 @@ public class StreamlinedMainWindow extends JFrame {
     
     private void toggleArticleRead(Article article, JButton button) {
         boolean newReadStatus = !article.isRead();
-        article.setRead(newReadStatus);
-        button.setText(article.isRead() ? "✅ Read" : "📖 Mark Read");
-        
-        JPanel card = findParentCard(button);
-        if (card != null) {
-            card.setBackground(article.isRead() ? new Color(249, 249, 249) : Color.WHITE);
-            card.repaint();
-        }
+        showReadState(button, newReadStatus);
 
         System.out.println("Article '" + article.getTitle() + "' marked as " + (newReadStatus ? "read" : "unread"));
         System.out.println("Current user: " + (currentUser != null ? currentUser.getUsername() : "Guest"));
@@ -616,7 +962,32 @@ public class StreamlinedMainWindow extends JFrame {
         // Save to database
         if (currentUser != null && article.getId() > 0) {
             System.out.println("Saving read status to DB for user " + currentUser.getUsername());
-            feedDAO.markArticleAsRead(currentUser.getId(), article.getId(), newReadStatus);
+            int userId = currentUser.getId();
+            // TimelineCache entries share this Article, so its flag only changes once the write succeeds
+            button.setEnabled(false);
+            asyncDAO.feeds(dao -> dao.markArticleAsRead(userId, article.getId(), newReadStatus))
+                .whenCompleteAsync((saved, error) -> {
+                    if (error == null && saved) {
+                        article.setRead(newReadStatus);
+                    } else {
+                        statusLabel.setText("Could not save read status for '" + article.getTitle() + "'");
+                        showReadState(button, article.isRead());
+                    }
+                    button.setEnabled(true);
+                    refreshUnreadCounts();
+                }, SwingUtilities::invokeLater);
+        } else {
+            article.setRead(newReadStatus);
+        }
+    }
+
+    private void showReadState(JButton button, boolean read) {
+        button.setText(read ? "✅ Read" : "📖 Mark Read");
+
+        JPanel card = findParentCard(button);
+        if (card != null) {
+            card.setBackground(read ? new Color(249, 249, 249) : Color.WHITE);
+            card.repaint();
         }
     }
     
@@ -625,13 +996,23 @@ public class StreamlinedMainWindow extends JFrame {
         article.setSaved(newSavedStatus);
         button.setText(article.isSaved() ? "💾 Saved" : "💾 Save");
         
-        if (selectedList.equals(Constants.DEFAULT_LIST_SAVED) && !article.isSaved()) {
-            loadArticlesForList(selectedList);
-        }
+        boolean leavesSavedList = selectedList.equals(Constants.DEFAULT_LIST_SAVED) && !article.isSaved();
         
         // Save to database
         if (currentUser != null && article.getId() > 0) {
-            feedDAO.markArticleAsSaved(currentUser.getId(), article.getId(), newSavedStatus);
+            int userId = currentUser.getId();
+            asyncDAO.feeds(dao -> dao.markArticleAsSaved(userId, article.getId(), newSavedStatus))
+                .whenCompleteAsync((saved, error) -> {
+                    if (error != null || !saved) {
+                        statusLabel.setText("Could not update saved state for '" + article.getTitle() + "'");
+                    }
+                    // Reload once the bookmark is gone (which evicts the cached Saved page)
+                    if (leavesSavedList && !showingSearchResults && selectedList.equals(Constants.DEFAULT_LIST_SAVED)) {
+                        loadArticlesForList(selectedList);
+                    }
+                }, SwingUtilities::invokeLater);
+        } else if (leavesSavedList) {
+            loadArticlesForList(selectedList);
         }
     }
     
@@ -657,38 +1038,127 @@ public class StreamlinedMainWindow extends JFrame {
         statusLabel.setText("Refreshing feeds...");
         refreshButton.setEnabled(false);
         refreshButton.setText("🔄 Refreshing...");
+        loadUserLists();
         
-        SwingWorker<Void, String> worker = new SwingWorker<Void, String>() {
+        if (currentUser == null) {
+            loadSampleFeedsForDemo();
+            refreshButton.setEnabled(true);
+            refreshButton.setText("🔄 Refresh");
+            return;
+        }
+        fetchSubscribedFeeds(() -> {
+            refreshButton.setEnabled(true);
+            refreshButton.setText("🔄 Refresh");
+            statusLabel.setText("Feeds refreshed successfully");
+            // Subscriptions may have changed, which pushed items alone would not show
+            if (!showingSearchResults) {
+                loadArticlesForList(selectedList);
+            }
+        });
+    }
+    
+    private void openFeedDiscovery() {
+        int userIdForDiscovery = currentUser != null ? currentUser.getId() : 0;
+        
+        FeedDiscoveryScreen discovery = new FeedDiscoveryScreen(this, userIdForDiscovery, () -> {
+            refreshFeeds(); // Refresh when new feeds are added
+        });
+        discovery.setVisible(true);
+    }
+    
+    private void importOpml() {
+        if (currentUser == null) {
+            statusLabel.setText("Please log in to import subscriptions");
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import OPML");
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("OPML files", "opml", "xml"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        int userId = currentUser.getId();
+        
+        importOpmlButton.setEnabled(false);
+        statusLabel.setText("Importing " + file.getName() + "...");
+        
+        SwingWorker<OpmlService.ImportResult, Void> worker = new SwingWorker<OpmlService.ImportResult, Void>() {
             @Override
-            protected Void doInBackground() throws Exception {
-                // Refresh user lists first
-                SwingUtilities.invokeLater(() -> loadUserLists());
+            protected OpmlService.ImportResult doInBackground() throws Exception {
+                // Feeds outside any folder go to the default (Home) list
+                List<FeedDAO.UserList> lists = feedDAO.getUserLists(userId);
+                int defaultListId = lists.stream().filter(FeedDAO.UserList::isDefault).findFirst()
+                    .or(() -> lists.stream().findFirst())
+                    .or(() -> feedDAO.createList(userId, Constants.DEFAULT_LIST_HOME))
+                    .map(FeedDAO.UserList::getId)
+                    .orElseThrow(() -> new IllegalStateException("Could not create a list to import into"));
                 
-                if (currentUser != null) {
-                    loadInitialData();
-                } else {
-                    loadSampleFeedsForDemo();
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+                    return new OpmlService().importOpml(userId, defaultListId, in);
                 }
-                return null;
             }
             
             @Override
             protected void done() {
-                refreshButton.setEnabled(true);
-                refreshButton.setText("🔄 Refresh");
-                statusLabel.setText("Feeds refreshed successfully");
+                importOpmlButton.setEnabled(true);
+                try {
+                    OpmlService.ImportResult result = get();
+                    String message = "Imported " + result.getTotal() + " feeds: " + result.getSubscribed() + " new subscriptions";
+                    if (!result.getFailed().isEmpty()) {
+                        message += ", " + result.getFailed().size() + " could not be added";
+                    }
+                    statusLabel.setText(message);
+                    refreshFeeds();
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    statusLabel.setText("Import failed: " + cause.getMessage());
+                    JOptionPane.showMessageDialog(StreamlinedMainWindow.this,
+                        "Could not import " + file.getName() + ":\n" + cause.getMessage(),
+                        "Import OPML", JOptionPane.ERROR_MESSAGE);
+                }
             }
         };
         worker.execute();
     }
     
-    private void openFeedDiscovery() {
-        int userIdForDiscovery = currentUser != null ? currentUser.getId() : 0;
+    private void exportOpml() {
+        if (currentUser == null) {
+            statusLabel.setText("Please log in to export subscriptions");
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export OPML");
+        chooser.setSelectedFile(new File(Constants.APP_NAME.toLowerCase() + "-subscriptions.opml"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        int userId = currentUser.getId();
         
-        FeedDiscoveryScreen discovery = new FeedDiscoveryScreen(this, userIdForDiscovery, () -> {
-            refreshFeeds(); // Refresh when new feeds are added
-        });
-        discovery.setVisible(true);
+        exportOpmlButton.setEnabled(false);
+        statusLabel.setText("Exporting subscriptions...");
+        
+        SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
+            @Override
+            protected Boolean doInBackground() throws Exception {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()))) {
+                    return new OpmlService().export(userId, out);
+                }
+            }
+            
+            @Override
+            protected void done() {
+                exportOpmlButton.setEnabled(true);
+                try {
+                    statusLabel.setText(get() ? "Subscriptions exported to " + file.getName() : "Export failed");
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    statusLabel.setText("Export failed: " + cause.getMessage());
+                }
+            }
+        };
+        worker.execute();
     }
     
     private void showSettingsDialog() {
@@ -833,6 +1303,10 @@ public class StreamlinedMainWindow extends JFrame {
             JOptionPane.YES_NO_OPTION);
         
         if (result == JOptionPane.YES_OPTION) {
+            if (currentUser != null) {
+                UnreadCounters.getInstance().invalidate(currentUser.getId());
+                timelineCache.invalidate(currentUser.getId());
+            }
             authController.logoutUser();
             dispose();
             SwingUtilities.invokeLater(() -> {
@@ -895,28 +1369,66 @@ public class StreamlinedMainWindow extends JFrame {
     }
     
     private void loadUserLists() {
-        userListsModel.clear();
+        if (currentUser == null) {
+            // Default lists for guest users
+            userListsModel.clear();
+            sidebarLists = new ArrayList<>();
+            userListsModel.addElement("🏠 " + Constants.DEFAULT_LIST_HOME);
+            userListsModel.addElement("💾 " + Constants.DEFAULT_LIST_SAVED);
+            return;
+        }
         
-        if (currentUser != null) {
+        int userId = currentUser.getId();
+        asyncDAO.feeds(dao -> {
             // Load user's actual lists from database
-            List<FeedDAO.UserList> userLists = feedDAO.getUserLists(currentUser.getId());
+            List<FeedDAO.UserList> userLists = dao.getUserLists(userId);
             
             // If no lists exist, create default Home list
             if (userLists.isEmpty()) {
-                Optional<FeedDAO.UserList> homeList = feedDAO.createList(currentUser.getId(), "Home");
-                if (homeList.isPresent()) {
-                    userLists.add(homeList.get());
-                }
+                dao.createList(userId, "Home").ifPresent(userLists::add);
+            }
+            
+            // Unread counts come from the in-memory counters, built once per user
+            UnreadCounters unreadCounters = UnreadCounters.getInstance();
+            if (!unreadCounters.isLoaded(userId)) {
+                unreadCounters.rebuild(userId);
+            }
+            for (FeedDAO.UserList list : userLists) {
+                list.setUnreadCount(unreadCounters.getListUnread(userId, list.getId()));
+            }
+            return userLists;
+        }).whenCompleteAsync((userLists, error) -> {
+            if (error != null) {
+                statusLabel.setText("Could not load your lists: " + error.getMessage());
+                return;
             }
             
             // Add lists to model
+            userListsModel.clear();
+            sidebarLists = userLists;
             for (FeedDAO.UserList list : userLists) {
                 userListsModel.addElement(list.toString());
             }
-        } else {
-            // Default lists for guest users
-            userListsModel.addElement("🏠 " + Constants.DEFAULT_LIST_HOME);
-            userListsModel.addElement("💾 " + Constants.DEFAULT_LIST_SAVED);
+        }, SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Update the unread counts shown in the sidebar in place, keeping the selection
+     */
+    private void refreshUnreadCounts() {
+        if (currentUser == null) {
+            return;
+        }
+        UnreadCounters unreadCounters = UnreadCounters.getInstance();
+        if (!unreadCounters.isLoaded(currentUser.getId())) {
+            // Invalidated (e.g. subscriptions changed): rebuild in the background
+            loadUserLists();
+            return;
+        }
+        for (int i = 0; i < sidebarLists.size() && i < userListsModel.size(); i++) {
+            FeedDAO.UserList list = sidebarLists.get(i);
+            list.setUnreadCount(unreadCounters.getListUnread(currentUser.getId(), list.getId()));
+            userListsModel.set(i, list.toString());
         }
     }
 
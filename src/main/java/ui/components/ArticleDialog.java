@@ -1,5 +1,6 @@
 package ui.components;
 
+import db.AsyncDAO;
 import db.models.Article;
 import utils.ThemeManager;
 
@@ -91,15 +92,16 @@ public class ArticleDialog extends JDialog {
         contentPanel.add(metaPanel);
         contentPanel.add(Box.createVerticalStrut(15));
 
-        // Content section
-        if (article.getContent() != null && !article.getContent().isEmpty()) {
+        // Content section. Stored articles come without their body; it is loaded on demand.
+        boolean hasContent = article.getContent() != null && !article.getContent().isEmpty();
+        if (hasContent || article.getId() > 0) {
             JLabel contentLabel = new JLabel("📄 Content");
             contentLabel.setFont(new Font("SansSerif", Font.BOLD, 14));
             contentLabel.setForeground(ThemeManager.getTextPrimaryColor());
             contentLabel.setBorder(new EmptyBorder(0, 0, 8, 0));
             contentPanel.add(contentLabel);
 
-            JTextArea contentArea = new JTextArea(article.getContent());
+            JTextArea contentArea = new JTextArea(hasContent ? article.getContent() : "Loading article...");
             contentArea.setLineWrap(true);
             contentArea.setWrapStyleWord(true);
             contentArea.setEditable(false);
@@ -117,6 +119,10 @@ public class ArticleDialog extends JDialog {
             contentScroll.setBorder(BorderFactory.createEmptyBorder());
             contentScroll.getViewport().setBackground(ThemeManager.getCardColor());
             contentPanel.add(contentScroll);
+
+            if (!hasContent) {
+                loadContent(contentArea);
+            }
         }
 
         JScrollPane mainScroll = new JScrollPane(contentPanel);
@@ -145,6 +151,23 @@ public class ArticleDialog extends JDialog {
         getContentPane().setBackground(ThemeManager.getBackgroundColor());
     }
 
+    private void loadContent(JTextArea contentArea) {
+        AsyncDAO.getInstance().feeds(dao -> dao.loadArticleContent(article.getId()).orElse(null))
+            .whenCompleteAsync((content, error) -> {
+                if (error != null) {
+                    contentArea.setText("Could not load the article: " + error.getMessage());
+                    return;
+                }
+                if (content != null && !content.isEmpty()) {
+                    article.setContent(content);
+                    contentArea.setText(content);
+                } else {
+                    contentArea.setText(article.getDescription() != null ? article.getDescription() : "No content available.");
+                }
+                contentArea.setCaretPosition(0);
+            }, SwingUtilities::invokeLater);
+    }
+
     private JPanel createInfoRow(String label, String value) {
         JPanel row = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
         row.setOpaque(false);
@@ -0,0 +1,108 @@
+package utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Application settings from feedhawk.properties.
+ * The copy bundled on the classpath provides the defaults; a feedhawk.properties
+ * in the working directory overrides individual keys. Keys missing from both
+ * fall back to the default passed by the caller.
+ */
+public class AppConfig {
+    private static final Logger logger = LoggerFactory.getLogger(AppConfig.class);
+    private static AppConfig instance;
+
+    private final Properties properties = new Properties();
+
+    private AppConfig() {
+        loadFromClasspath();
+        loadFromWorkingDirectory();
+    }
+
+    /**
+     * Singleton pattern for global access
+     */
+    public static synchronized AppConfig getInstance() {
+        if (instance == null) {
+            instance = new AppConfig();
+        }
+        return instance;
+    }
+
+    private void loadFromClasspath() {
+        try (InputStream in = AppConfig.class.getClassLoader().getResourceAsStream(Constants.CONFIG_FILE)) {
+            if (in != null) {
+                properties.load(in);
+                logger.debug("Loaded bundled {}", Constants.CONFIG_FILE);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not read bundled {}", Constants.CONFIG_FILE, e);
+        }
+    }
+
+    private void loadFromWorkingDirectory() {
+        Path path = Paths.get(Constants.CONFIG_FILE);
+        if (!Files.isRegularFile(path)) {
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+            logger.info("Loaded configuration from {}", path.toAbsolutePath());
+        } catch (IOException e) {
+            logger.warn("Could not read {}", path.toAbsolutePath(), e);
+        }
+    }
+
+    public String getString(String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid integer for {}: '{}', using {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid number for {}: '{}', using {}", key, value, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    /**
+     * @return true if the key has a non-blank value
+     */
+    public boolean isSet(String key) {
+        return getString(key, null) != null;
+    }
+}
@@ -13,6 +13,14 @@ public class Constants {
     public static final String DEFAULT_DB_USERNAME = "feedhawk_user";
     public static final String DEFAULT_DB_PASSWORD = "feedhawk_password";
 
+    public static final int DB_QUERY_TIMEOUT_SECONDS = 15; // Async DAO calls fail after this
+
+    // Feed Item Retention (feed_items is partitioned by month)
+    public static final int FEED_ITEM_RETENTION_MONTHS = 6;
+    public static final int FEED_ITEM_PARTITIONS_AHEAD = 2;
+    public static final boolean FEED_ITEM_RETENTION_DROP = true; // false = detach and keep as archive tables
+    public static final int RETENTION_INTERVAL_MINUTES = 24 * 60;
+
     // Feed Categories (for discovery and filtering)
     public static final String CATEGORY_NEWS = "News";
     public static final String CATEGORY_TECH = "Tech";
@@ -46,6 +54,25 @@ public class Constants {
     public static final int MAX_ARTICLES_PER_PAGE = 200;
     public static final int RECENT_ARTICLES_LIMIT = 100;
     public static final int ITEMS_PER_LIST_IN_HOME = 10; // For stacked display
+    public static final int SEARCH_RESULTS_PAGE_SIZE = 25;
+    public static final int TIMELINE_CACHE_PAGES = 64; // Timeline pages kept in memory (LRU)
+    public static final int SOURCE_CACHE_SIZE = 2000; // Sources kept in memory by id and url (LRU)
+
+    // Feed discovery search caching
+    public static final int SEARCH_CACHE_TTL_MINUTES = 10;
+    public static final int SEARCH_FAILURE_TTL_SECONDS = 30; // Failed lookups are retried after this
+    public static final int SEARCH_CACHE_SIZE = 500;
+    public static final int FEED_SEARCH_TIMEOUT_MS = 8000; // Per feedsearch.dev call; keyword fan-out waits at most this long
+    public static final int BULK_BATCH_SIZE = 500; // Rows per statement for bulk inserts and streamed reads
+    public static final int OPML_IMPORT_THREADS = 32; // Feeds of an OPML import validated at once
+    public static final int FEED_VALIDATION_THREADS = 8; // Candidate feed URLs probed at once
+    public static final int FEED_VALIDATION_TTL_HOURS = 6; // How long a feed / not-a-feed verdict is trusted
+    public static final int FEED_VALIDATION_MAX_REDIRECTS = 5; // Redirects a probe follows, e.g. http -> https
+    public static final int FEED_VALIDATION_CACHE_SIZE = 2000;
+    public static final int LOCAL_INDEX_SEEN_LIMIT = 5000; // Remote search results remembered for local search
+    public static final int LOCAL_INDEX_REFRESH_MINUTES = 15; // Sources table reloaded into the local index after this
+    public static final int LOCAL_SEARCH_LIMIT = 30; // Local matches shown per keystroke
+    public static final int SEARCH_CANDIDATE_LIMIT = 2000; // Newest matches ranked per article search
 
     // Password Requirements
     public static final int MIN_PASSWORD_LENGTH = 8;
@@ -53,8 +80,20 @@ public class Constants {
     public static final int MIN_USERNAME_LENGTH = 3;
     public static final int MAX_USERNAME_LENGTH = 50;
 
+    // Authentication
+    public static final int PASSWORD_HASH_QUEUE_LIMIT = 64; // Hash/verify requests waiting for a core before new ones are refused
+    public static final int PASSWORD_HASH_TIMEOUT_SECONDS = 10; // Give up waiting for a hash/verify after this
+    public static final int LOGIN_MAX_FAILURES = 5; // Failed attempts per username/email within the window before throttling
+    public static final int LOGIN_FAILURE_WINDOW_MINUTES = 15; // Sliding window for counting failed attempts
+    public static final int PASSWORD_HASH_TARGET_MILLIS = 250; // BCrypt cost is calibrated at startup to take about this long
+    public static final int PASSWORD_HASH_MIN_COST = 10; // Never hash below this cost, however slow the machine
+    public static final int PASSWORD_HASH_MAX_COST = 16; // Never hash above this cost, however fast the machine
+    public static final int SESSION_TTL_DAYS = 30; // Remember-me sessions expire this long after login
+
     // File Paths
     public static final String CACHE_DIR = "cache";
+    public static final String USER_DATA_DIR = ".feedhawk"; // Per-user files, under the user's home directory
+    public static final String SESSION_FILE = "session.token"; // Remember-me token, in USER_DATA_DIR
     public static final String LOGS_DIR = "logs";
     public static final String CONFIG_FILE = "feedhawk.properties";
 
@@ -122,6 +161,7 @@ public class Constants {
 
     // Search and Discovery
     public static final String YOUTUBE_RSS_BASE = "https://www.youtube.com/feeds/videos.xml?channel_id=";
+    public static final int YOUTUBE_CHANNEL_TTL_DAYS = 30; // Resolved handle -> channel id mappings kept on disk this long
     public static final String YOUTUBE_USER_RSS_BASE = "https://www.youtube.com/feeds/videos.xml?user=";
     public static final String[] POPULAR_RSS_PROVIDERS = {
         "rss.cnn.com", "feeds.bbci.co.uk", "rss.nytimes.com",
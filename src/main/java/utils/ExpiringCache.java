@@ -0,0 +1,163 @@
+package utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Small thread-safe cache for slow lookups such as remote searches.
+ * Values expire after a TTL; failures are remembered for a shorter TTL so a
+ * failing upstream is not retried on every call (negative caching). Concurrent
+ * get() calls for the same missing key share a single load (single-flight).
+ */
+public class ExpiringCache<K, V> {
+    private static final Logger logger = LoggerFactory.getLogger(ExpiringCache.class);
+
+    /**
+     * Loads the value for a key on a cache miss
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws Exception;
+    }
+
+    private final String name;
+    private final long ttlNanos;
+    private final long failureTtlNanos;
+    private final int maxSize;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public ExpiringCache(String name, Duration ttl, Duration failureTtl, int maxSize) {
+        this.name = name;
+        this.ttlNanos = ttl.toNanos();
+        this.failureTtlNanos = failureTtl.toNanos();
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * The cached value for key, or the result of loader. A cached failure is
+     * rethrown until it expires.
+     */
+    public V get(K key, Loader<V> loader) throws Exception {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && !entry.isExpired()) {
+            return entry.get();
+        }
+
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, load);
+        if (existing != null) {
+            // Someone else is loading this key: wait for their result
+            logger.debug("{}: joining in-flight load for {}", name, key);
+            try {
+                return existing.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        try {
+            V value = loader.load();
+            put(key, new Entry<>(value, null, System.nanoTime() + ttlNanos));
+            load.complete(value);
+            return value;
+        } catch (InterruptedException | CancellationException e) {
+            // The caller gave up; that says nothing about the upstream, so don't cache it
+            load.completeExceptionally(e);
+            throw e;
+        } catch (Exception e) {
+            put(key, new Entry<>(null, e, System.nanoTime() + failureTtlNanos));
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Errors skip the handlers above; don't leave waiters hanging
+            load.cancel(false);
+            inFlight.remove(key, load);
+        }
+    }
+
+    /**
+     * The cached value for key, if there is one that has not expired (failures count as absent)
+     */
+    public Optional<V> getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || entry.isExpired() || entry.failure != null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(entry.value);
+    }
+
+    /**
+     * Cache a value loaded outside get()
+     */
+    public void put(K key, V value) {
+        put(key, new Entry<>(value, null, System.nanoTime() + ttlNanos));
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private void put(K key, Entry<V> entry) {
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(key, entry);
+    }
+
+    /**
+     * Drop expired entries, or the one closest to expiry if none have expired
+     */
+    private void evict() {
+        K soonest = null;
+        long soonestExpiry = 0;
+        for (Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<K, Entry<V>> candidate = it.next();
+            if (candidate.getValue().isExpired()) {
+                it.remove();
+            } else if (soonest == null || candidate.getValue().expiresAt - soonestExpiry < 0) {
+                soonest = candidate.getKey();
+                soonestExpiry = candidate.getValue().expiresAt;
+            }
+        }
+        if (entries.size() >= maxSize && soonest != null) {
+            entries.remove(soonest);
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final Exception failure;
+        private final long expiresAt;
+
+        Entry(V value, Exception failure, long expiresAt) {
+            this.value = value;
+            this.failure = failure;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+
+        V get() throws Exception {
+            if (failure != null) {
+                throw failure;
+            }
+            return value;
+        }
+    }
+}